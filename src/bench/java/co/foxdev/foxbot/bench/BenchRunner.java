@@ -0,0 +1,168 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs JMH with the usual command line options, then compares the results with the baseline in
+ * src/bench/baseline.json, so a slowdown shows up without digging through two JSON files.
+ */
+public class BenchRunner
+{
+	// Changes smaller than this, or than the error margins, are noise on most machines
+	private static final double THRESHOLD = 0.10;
+
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions options = new CommandLineOptions(args);
+
+		if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams() || options.shouldListResultFormats() || options.shouldListProfilers())
+		{
+			Main.main(args);
+			return;
+		}
+
+		new Runner(options).run();
+
+		if (options.getResultFormat().orElse(null) != ResultFormatType.JSON || !options.getResult().hasValue())
+		{
+			return;
+		}
+
+		File baseline = new File(System.getProperty("bench.baseline", "baseline.json"));
+		File results = new File(options.getResult().get());
+
+		if (!baseline.isFile())
+		{
+			System.out.println(String.format("No baseline at %s, copy %s there to start one.", baseline, results));
+			return;
+		}
+		compare(read(baseline), read(results), baseline, results);
+	}
+
+	private static void compare(Map<String, Score> before, Map<String, Score> after, File baseline, File results)
+	{
+		int slower = 0;
+
+		System.out.println();
+		System.out.println(String.format("%s compared with %s:", results, baseline));
+		System.out.println(String.format("%-60s %14s %14s %8s", "Benchmark", "Baseline", "Now", "Change"));
+
+		for (Map.Entry<String, Score> entry : after.entrySet())
+		{
+			Score now = entry.getValue();
+			Score then = before.get(entry.getKey());
+
+			if (then == null || !then.unit.equals(now.unit))
+			{
+				System.out.println(String.format("%-60s %14s %14s %8s", entry.getKey(), "-", format(now), "new"));
+				continue;
+			}
+
+			double change = (now.score - then.score) / then.score;
+			// For times lower is better, for throughput higher is
+			boolean worse = now.lowerIsBetter ? change > 0 : change < 0;
+			boolean significant = Math.abs(change) > THRESHOLD && Math.abs(now.score - then.score) > now.error + then.error;
+			String marker = significant ? (worse ? "  SLOWER" : "  faster") : "";
+
+			if (significant && worse)
+			{
+				slower++;
+			}
+			System.out.println(String.format("%-60s %14s %14s %+7.1f%%%s", entry.getKey(), format(then), format(now), change * 100, marker));
+		}
+
+		System.out.println(slower == 0 ? "Nothing is significantly slower than the baseline." : String.format("%s benchmarks are significantly slower than the baseline.", slower));
+		System.out.println("Scores only compare on the same machine, rerun the baseline first if it came from another one.");
+	}
+
+	private static String format(Score score)
+	{
+		return String.format("%.2f %s", score.score, score.unit);
+	}
+
+	// Benchmark name with its parameters, like UrlMatchBenchmark.scanner(input=one), to its score.
+	private static Map<String, Score> read(File file) throws IOException
+	{
+		Map<String, Score> scores = new TreeMap<>();
+
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))
+		{
+			for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray())
+			{
+				JsonObject result = element.getAsJsonObject();
+				JsonObject metric = result.getAsJsonObject("primaryMetric");
+				StringBuilder name = new StringBuilder(result.get("benchmark").getAsString().replace(BenchRunner.class.getPackage().getName() + ".", ""));
+
+				if (result.has("params"))
+				{
+					name.append(toStrings(result.getAsJsonObject("params")).toString().replace('{', '(').replace('}', ')'));
+				}
+
+				String mode = result.get("mode").getAsString();
+				double error = metric.get("scoreError").isJsonPrimitive() && metric.get("scoreError").getAsJsonPrimitive().isNumber() ? metric.get("scoreError").getAsDouble() : 0;
+
+				scores.put(name.toString(), new Score(metric.get("score").getAsDouble(), error, metric.get("scoreUnit").getAsString(), !mode.equals("thrpt")));
+			}
+		}
+		return scores;
+	}
+
+	private static Map<String, String> toStrings(JsonObject object)
+	{
+		Map<String, String> values = new TreeMap<>();
+
+		for (Map.Entry<String, JsonElement> entry : object.entrySet())
+		{
+			values.put(entry.getKey(), entry.getValue().getAsString());
+		}
+		return values;
+	}
+
+	private static class Score
+	{
+		private final double score;
+		private final double error;
+		private final String unit;
+		private final boolean lowerIsBetter;
+
+		private Score(double score, double error, String unit, boolean lowerIsBetter)
+		{
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+			this.lowerIsBetter = lowerIsBetter;
+		}
+	}
+}
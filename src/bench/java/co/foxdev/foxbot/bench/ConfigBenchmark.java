@@ -0,0 +1,76 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import co.foxdev.foxbot.config.yamlconfig.InvalidConfigurationException;
+import co.foxdev.foxbot.config.yamlconfig.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemorySection lookups and a YAML save and load of the default config.yml.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark
+{
+	private YamlConfiguration config;
+	private String saved;
+
+	@Setup
+	public void setup() throws IOException, InvalidConfigurationException
+	{
+		config = new YamlConfiguration();
+
+		try (InputStream stream = getClass().getResourceAsStream("/config.yml"))
+		{
+			config.load(stream);
+		}
+		saved = config.saveToString();
+	}
+
+	@Benchmark
+	public Object get()
+	{
+		return config.get("server.address");
+	}
+
+	@Benchmark
+	public List<String> getStringList()
+	{
+		return config.getStringList("server.channels");
+	}
+
+	@Benchmark
+	public YamlConfiguration roundTrip() throws InvalidConfigurationException
+	{
+		YamlConfiguration loaded = new YamlConfiguration();
+
+		loaded.loadFromString(saved);
+		loaded.saveToString();
+		return loaded;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.StubFoxBot;
+import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.CommandArgs;
+import co.foxdev.foxbot.utils.CommandManager;
+import org.openjdk.jmh.annotations.*;
+import org.pircbotx.Channel;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CommandManager.dispatchCommand for a built-in command, a custom command and a line that is neither,
+ * one turned away by its rate limit, plus turning away a message that isn't a command at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark
+{
+	private CommandManager commandManager;
+	private MessageEvent event;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		File channelDir = new File("data/custcmds/bench");
+
+		if (!channelDir.isDirectory() && !channelDir.mkdirs())
+		{
+			throw new IOException("Could not create " + channelDir);
+		}
+
+		try (FileWriter writer = new FileWriter(new File(channelDir, "hello")))
+		{
+			writer.write("Hello from a custom command");
+		}
+
+		StubEventFactory events = new StubEventFactory("FoxBot");
+		FoxBot foxbot = StubFoxBot.create(events.getBot());
+		Channel channel = events.channel("#bench");
+
+		// Keep noop and custom commands unlimited so the hits measure dispatch, and let limited through once a day
+		foxbot.getConfig().getBotConfig().set("rate-limits.commands.noop.user", "none");
+		foxbot.getConfig().getBotConfig().set("rate-limits.commands.noop.channel", "none");
+		foxbot.getConfig().getBotConfig().set("rate-limits.commands.limited.user", "1/86400");
+		foxbot.getConfig().getBotConfig().set("rate-limits.commands.limited.channel", "none");
+		foxbot.getConfig().getBotConfig().set("rate-limits.custom.user", "none");
+		foxbot.getConfig().getBotConfig().set("rate-limits.custom.channel", "none");
+
+		commandManager = foxbot.getCommandManager();
+		commandManager.registerCommand(new NoopCommand("noop"));
+		commandManager.registerCommand(new NoopCommand("limited"));
+		commandManager.getCustomCommandStore().load();
+		// The command line is passed separately, so the message itself doesn't matter
+		event = events.message(channel, events.user("someone", "someone", "example.com"), "!noop");
+	}
+
+	@Benchmark
+	public boolean builtinHit()
+	{
+		return commandManager.dispatchCommand(event, CommandArgs.parse("!noop first second third", '!', "FoxBot"));
+	}
+
+	@Benchmark
+	public boolean builtinLimited()
+	{
+		return commandManager.dispatchCommand(event, CommandArgs.parse("!limited first second third", '!', "FoxBot"));
+	}
+
+	@Benchmark
+	public boolean customHit()
+	{
+		return commandManager.dispatchCommand(event, CommandArgs.parse("!hello", '!', "FoxBot"));
+	}
+
+	@Benchmark
+	public boolean miss()
+	{
+		return commandManager.dispatchCommand(event, CommandArgs.parse("!notacommand first second third", '!', "FoxBot"));
+	}
+
+	@Benchmark
+	public CommandArgs notCommand()
+	{
+		return CommandArgs.parse("just chatting, nothing for the bot to do here", '!', "FoxBot");
+	}
+
+	// Runs inline and needs a permission everyone has, so dispatch is all that gets measured
+	public static class NoopCommand extends Command
+	{
+		public int lastArgs;
+
+		public NoopCommand(String name)
+		{
+			super(name, "command.ping");
+		}
+
+		@Override
+		public boolean isBlocking()
+		{
+			return false;
+		}
+
+		@Override
+		public void execute(MessageEvent event, CommandArgs args)
+		{
+			lastArgs = args.size();
+		}
+	}
+}
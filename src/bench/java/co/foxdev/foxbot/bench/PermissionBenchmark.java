@@ -0,0 +1,69 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import co.foxdev.foxbot.StubFoxBot;
+import co.foxdev.foxbot.permissions.PermissionManager;
+import org.openjdk.jmh.annotations.*;
+import org.pircbotx.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PermissionManager.userHasQuietPermission with the permissions.yml the bot ships with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionBenchmark
+{
+	private PermissionManager permissionManager;
+	private User user;
+	private User owner;
+
+	@Setup
+	public void setup()
+	{
+		StubEventFactory events = new StubEventFactory("FoxBot");
+
+		permissionManager = StubFoxBot.create(events.getBot()).getPermissionManager();
+		user = events.user("someone", "someone", "example.com");
+		owner = events.user("TheReverend403", "rev", "revthefox.co.uk");
+	}
+
+	@Benchmark
+	public boolean defaultGranted()
+	{
+		return permissionManager.userHasQuietPermission(user, "command.ping");
+	}
+
+	@Benchmark
+	public boolean denied()
+	{
+		return permissionManager.userHasQuietPermission(user, "command.kill");
+	}
+
+	@Benchmark
+	public boolean wildcard()
+	{
+		return permissionManager.userHasQuietPermission(owner, "command.kill");
+	}
+}
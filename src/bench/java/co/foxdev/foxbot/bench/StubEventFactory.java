@@ -0,0 +1,126 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import org.pircbotx.Channel;
+import org.pircbotx.Configuration;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.output.OutputRaw;
+
+import java.lang.reflect.Method;
+
+/**
+ * Makes PircBotX users, channels and message events without connecting to anything. Lines the bot
+ * sends are counted and thrown away.
+ */
+public class StubEventFactory
+{
+	private final PircBotX bot;
+	private final NullOutputRaw output;
+
+	public StubEventFactory(String nick)
+	{
+		Configuration<PircBotX> configuration = new Configuration.Builder<PircBotX>()
+				.setName(nick)
+				.setServerHostname("irc.example.com")
+				.setBotFactory(new Configuration.BotFactory()
+				{
+					@Override
+					public OutputRaw createOutputRaw(PircBotX bot)
+					{
+						return new NullOutputRaw(bot);
+					}
+				})
+				.buildConfiguration();
+
+		bot = new PircBotX(configuration);
+		output = (NullOutputRaw) bot.sendRaw();
+	}
+
+	public PircBotX getBot()
+	{
+		return bot;
+	}
+
+	public Channel channel(String name)
+	{
+		return bot.getUserChannelDao().getChannel(name);
+	}
+
+	// PircBotX only fills these in from server replies, so they're set the same way its parser does.
+	public User user(String nick, String login, String hostmask)
+	{
+		User user = bot.getUserChannelDao().getUser(nick);
+
+		try
+		{
+			Method setLogin = User.class.getDeclaredMethod("setLogin", String.class);
+			Method setHostmask = User.class.getDeclaredMethod("setHostmask", String.class);
+
+			setLogin.setAccessible(true);
+			setHostmask.setAccessible(true);
+			setLogin.invoke(user, login);
+			setHostmask.invoke(user, hostmask);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			throw new IllegalStateException("PircBotX's User no longer has the setters this relies on", ex);
+		}
+		return user;
+	}
+
+	public MessageEvent<PircBotX> message(Channel channel, User user, String message)
+	{
+		return new MessageEvent<>(bot, channel, user, message);
+	}
+
+	public long getLinesSent()
+	{
+		return output.sent;
+	}
+
+	private static class NullOutputRaw extends OutputRaw
+	{
+		private long sent;
+
+		public NullOutputRaw(PircBotX bot)
+		{
+			super(bot);
+		}
+
+		@Override
+		public void rawLine(String line)
+		{
+			sent++;
+		}
+
+		@Override
+		public void rawLineNow(String line)
+		{
+			sent++;
+		}
+
+		@Override
+		public void rawLineNow(String line, boolean resetDelay)
+		{
+			sent++;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import co.foxdev.foxbot.urlpreview.UrlScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * UrlScanner against the URL_PATTERN regex MessageListener used to run on every message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlMatchBenchmark
+{
+	private static final Pattern URL_PATTERN = Pattern.compile(".*((https?)[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]).*");
+
+	@Param({ "none", "one", "long" })
+	public String text;
+
+	private String message;
+
+	@Setup
+	public void setup()
+	{
+		switch (text)
+		{
+			case "none":
+				message = "has anyone tried the new build yet? mine keeps timing out on startup";
+				break;
+			case "one":
+				message = "the changelog is up at https://github.com/FoxDev/FoxBot/commits/master if anyone wants it";
+				break;
+			default:
+				StringBuilder builder = new StringBuilder();
+
+				// Lots of near misses, the worst case for backtracking
+				while (builder.length() < 400)
+				{
+					builder.append("http: https:/ ");
+				}
+				message = builder.toString();
+		}
+	}
+
+	@Benchmark
+	public List<String> scanner()
+	{
+		return UrlScanner.find(message, 3);
+	}
+
+	@Benchmark
+	public String legacyPattern()
+	{
+		Matcher matcher = URL_PATTERN.matcher(message);
+
+		return matcher.matches() ? matcher.group(1) : null;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench;
+
+import co.foxdev.foxbot.StubFoxBot;
+import co.foxdev.foxbot.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.pircbotx.Colors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utils.colourise against the chained replace() version it replaced, and Utils.munge.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark
+{
+	private static final String[][] LEGACY_CODES = {
+			{ "0", Colors.BLACK }, { "1", Colors.DARK_BLUE }, { "2", Colors.DARK_GREEN }, { "3", Colors.TEAL },
+			{ "4", Colors.RED }, { "5", Colors.PURPLE }, { "6", Colors.BROWN }, { "7", Colors.LIGHT_GRAY },
+			{ "8", Colors.DARK_GRAY }, { "9", Colors.BLUE }, { "a", Colors.GREEN }, { "b", Colors.CYAN },
+			{ "c", Colors.RED }, { "d", Colors.MAGENTA }, { "e", Colors.YELLOW }, { "f", Colors.WHITE },
+			{ "r", Colors.NORMAL }, { "l", Colors.BOLD }, { "n", Colors.UNDERLINE }, { "m", "" }, { "k", "" }, { "o", "" }
+	};
+
+	@Param({ "plain", "coloured" })
+	public String text;
+
+	private String message;
+
+	@Setup
+	public void setup()
+	{
+		StubFoxBot.create(new StubEventFactory("FoxBot").getBot());
+		message = text.equals("plain")
+		          ? "Nothing to see here, just a normal line of chat without any codes in it"
+		          : "&aServer is &lonline&r with &e12&r/&e20&r players, running &91.7.10&r (&cpvp&r)";
+	}
+
+	@Benchmark
+	public String colourise()
+	{
+		return Utils.colourise(message);
+	}
+
+	@Benchmark
+	public String colouriseLegacy()
+	{
+		String result = message;
+
+		for (String[] code : LEGACY_CODES)
+		{
+			result = result.replace('&' + code[0], code[1]);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public String munge()
+	{
+		return Utils.munge("someone_with_a_long_nickname");
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench.load;
+
+import co.foxdev.foxbot.irc.FakeIrcServer;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches "ping me" commands to the bot's replies, which are just the sender's nick in the same
+ * channel, and keeps the time between the two.
+ */
+public class LatencyRecorder implements FakeIrcServer.Listener
+{
+	// Channel and nick to the send times of the commands still waiting for a reply, oldest first
+	private final Map<String, Deque<Long>> pending = new HashMap<>();
+	private long[] latencies = new long[1024];
+	private int answered;
+	private int probes;
+	private int otherMessages;
+
+	public synchronized void probe(String channel, String nick, long sentNanos)
+	{
+		String key = key(channel, nick);
+		Deque<Long> times = pending.get(key);
+
+		if (times == null)
+		{
+			times = new ArrayDeque<>();
+			pending.put(key, times);
+		}
+		times.add(sentNanos);
+		probes++;
+	}
+
+	@Override
+	public synchronized void onMessage(String target, String text)
+	{
+		long now = System.nanoTime();
+		Deque<Long> times = pending.get(key(target, text));
+
+		if (times == null || times.isEmpty())
+		{
+			otherMessages++;
+			return;
+		}
+
+		if (answered == latencies.length)
+		{
+			latencies = Arrays.copyOf(latencies, answered * 2);
+		}
+		latencies[answered++] = now - times.poll();
+	}
+
+	public synchronized int getOutstanding()
+	{
+		return probes - answered;
+	}
+
+	public synchronized void report(PrintStream out, long slowMillis)
+	{
+		long[] sorted = Arrays.copyOf(latencies, answered);
+		long slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+		int slow = 0;
+
+		Arrays.sort(sorted);
+
+		for (long latency : sorted)
+		{
+			if (latency > slowNanos)
+			{
+				slow++;
+			}
+		}
+
+		out.println(String.format("Commands sent:      %s", probes));
+		out.println(String.format("Replies:            %s", answered));
+		out.println(String.format("No reply (dropped): %s", probes - answered));
+		out.println(String.format("Slower than %sms:  %s", slowMillis, slow));
+		out.println(String.format("Other bot messages: %s", otherMessages));
+
+		if (answered > 0)
+		{
+			out.println(String.format("Latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f",
+					millis(percentile(sorted, 0.5)), millis(percentile(sorted, 0.9)), millis(percentile(sorted, 0.99)),
+					millis(percentile(sorted, 0.999)), millis(sorted[sorted.length - 1])));
+		}
+	}
+
+	private static long percentile(long[] sorted, double fraction)
+	{
+		return sorted[Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	private static double millis(long nanos)
+	{
+		return nanos / 1000000D;
+	}
+
+	private static String key(String channel, String nick)
+	{
+		return channel.toLowerCase(Locale.ENGLISH) + ' ' + nick;
+	}
+}
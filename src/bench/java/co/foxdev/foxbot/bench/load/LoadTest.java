@@ -0,0 +1,237 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench.load;
+
+import ch.qos.logback.classic.Level;
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.config.yamlconfig.file.YamlConfiguration;
+import co.foxdev.foxbot.irc.FakeIrcServer;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs FoxBot against a FakeIrcServer in the same JVM and pushes synthetic or recorded traffic at it,
+ * then reports how long "ping me" commands took to be answered. The bot's config/config.yml in the
+ * working directory is overwritten to point at the fake server.
+ *
+ * mvn -P benchmark test-compile exec:exec -Dbench.dir=target/loadtest
+ *     -Dbench.main=co.foxdev.foxbot.bench.load.LoadTest -Dbench.args="--rate 10000 --channels 500"
+ */
+public class LoadTest
+{
+	private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+	static
+	{
+		DEFAULTS.put("rate", "1000");
+		DEFAULTS.put("channels", "50");
+		DEFAULTS.put("users", "2000");
+		DEFAULTS.put("duration", "30");
+		DEFAULTS.put("command-ratio", "0.05");
+		DEFAULTS.put("storm-every", "0");
+		DEFAULTS.put("storm-size", "200");
+		DEFAULTS.put("replay", "");
+		DEFAULTS.put("speed", "1");
+		DEFAULTS.put("flood-rate", "");
+		DEFAULTS.put("grace", "10");
+		DEFAULTS.put("slow-ms", "1000");
+		DEFAULTS.put("log-raw", "false");
+		DEFAULTS.put("seed", "1");
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		Map<String, String> options = parseOptions(args);
+
+		if (options == null)
+		{
+			System.err.println("Options, with defaults: " + DEFAULTS);
+			System.exit(64);
+			return;
+		}
+
+		List<String> channels = new ArrayList<>();
+
+		for (int i = 0; i < Integer.parseInt(options.get("channels")); i++)
+		{
+			channels.add("#load" + i);
+		}
+
+		LatencyRecorder recorder = new LatencyRecorder();
+		FakeIrcServer server = new FakeIrcServer(recorder);
+		char prefix = writeConfig(server.getPort(), channels, options.get("flood-rate"));
+
+		if (!Boolean.parseBoolean(options.get("log-raw")))
+		{
+			// PircBotX logs every line in and out, which would cost more than the bot itself at these rates
+			((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.pircbotx")).setLevel(Level.WARN);
+		}
+
+		server.start();
+		startBot();
+
+		System.out.println(String.format("Waiting for the bot to join %s channels...", channels.size()));
+
+		if (!server.awaitJoined(channels, 5, TimeUnit.MINUTES))
+		{
+			System.err.println(String.format("The bot only joined %s of %s channels", server.getJoinedCount(), channels.size()));
+			System.exit(1);
+		}
+
+		Traffic traffic = options.get("replay").isEmpty()
+		                  ? new SyntheticTraffic(channels, Integer.parseInt(options.get("users")), Integer.parseInt(options.get("rate")),
+		                                         Integer.parseInt(options.get("duration")), Double.parseDouble(options.get("command-ratio")), prefix,
+		                                         Integer.parseInt(options.get("storm-every")), Integer.parseInt(options.get("storm-size")),
+		                                         Long.parseLong(options.get("seed")))
+		                  : new ReplayTraffic(new File(options.get("replay")), Double.parseDouble(options.get("speed")));
+
+		System.out.println("Sending traffic...");
+
+		long start = System.nanoTime();
+		long sent = replay(traffic, server, recorder, prefix + "ping me");
+		long elapsed = System.nanoTime() - start;
+		long graceEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("grace")));
+
+		while (recorder.getOutstanding() > 0 && System.nanoTime() < graceEnd)
+		{
+			Thread.sleep(100);
+		}
+
+		System.out.println(String.format("Lines sent:         %s in %.1fs (%.0f/s)", sent, elapsed / 1e9, sent / (elapsed / 1e9)));
+		recorder.report(System.out, Long.parseLong(options.get("slow-ms")));
+		System.exit(0);
+	}
+
+	// Returns the number of lines sent.
+	private static long replay(Traffic traffic, FakeIrcServer server, LatencyRecorder recorder, String probe) throws Exception
+	{
+		long start = System.nanoTime();
+		long sent = 0;
+		Traffic.Line line;
+
+		while ((line = traffic.next()) != null)
+		{
+			long due = start + line.offsetNanos;
+			long now = System.nanoTime();
+
+			if (due > now)
+			{
+				// Only flush while waiting, so bursts go out in as few writes as possible
+				server.flush();
+				LockSupport.parkNanos(due - now);
+			}
+
+			String nick = getProbeNick(line.raw, probe);
+
+			server.sendBuffered(line.raw);
+			sent++;
+
+			if (nick != null)
+			{
+				recorder.probe(line.raw.substring(line.raw.indexOf(" PRIVMSG ") + 9, line.raw.indexOf(" :")), nick, System.nanoTime());
+			}
+		}
+		server.flush();
+		return sent;
+	}
+
+	// Returns the sender if the line is a channel PRIVMSG of exactly the probe command.
+	private static String getProbeNick(String raw, String probe)
+	{
+		int bang = raw.indexOf('!');
+		int privmsg = raw.indexOf(" PRIVMSG #");
+
+		if (!raw.startsWith(":") || bang < 0 || privmsg < bang || !raw.endsWith(" :" + probe))
+		{
+			return null;
+		}
+
+		int text = raw.indexOf(" :", privmsg);
+
+		return text == raw.length() - probe.length() - 2 ? raw.substring(1, bang) : null;
+	}
+
+	private static void startBot()
+	{
+		Thread thread = new Thread("LoadTest-Bot")
+		{
+			@Override
+			public void run()
+			{
+				FoxBot.main(new String[0]);
+			}
+		};
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// Points the bot at the fake server and returns its command prefix.
+	private static char writeConfig(int port, List<String> channels, String floodRate) throws Exception
+	{
+		YamlConfiguration config = new YamlConfiguration();
+
+		try (InputStream stream = FoxBot.class.getResourceAsStream("/config.yml"))
+		{
+			config.load(stream);
+		}
+
+		config.set("server.address", "127.0.0.1");
+		config.set("server.port", port);
+		config.set("server.ssl", false);
+		config.set("server.password", "");
+		config.set("server.channels", channels);
+		config.set("auth.use-nickserv", false);
+		// The synthetic users all share a host, so they'd be limited as one
+		config.set("rate-limits.enabled", false);
+
+		if (!floodRate.isEmpty())
+		{
+			config.set("flood-control.rate", Double.parseDouble(floodRate));
+			config.set("flood-control.burst", (int) Math.max(10, Double.parseDouble(floodRate)));
+		}
+
+		// The bot reads its config files from config/
+		config.save(new File("config", "config.yml"));
+		return config.getString("misc.command-prefix").charAt(0);
+	}
+
+	// Returns null if an option isn't recognised.
+	private static Map<String, String> parseOptions(String[] args)
+	{
+		Map<String, String> options = new HashMap<>(DEFAULTS);
+
+		for (int i = 0; i < args.length; i += 2)
+		{
+			if (!args[i].startsWith("--") || !DEFAULTS.containsKey(args[i].substring(2)) || i + 1 >= args.length)
+			{
+				return null;
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+}
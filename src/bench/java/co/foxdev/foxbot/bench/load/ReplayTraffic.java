@@ -0,0 +1,75 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench.load;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recording, one line per message in the form "milliseconds raw-line", where the
+ * milliseconds count from the start of the recording. Blank lines and lines starting with # are
+ * skipped. A speed of 2 plays it back twice as fast.
+ */
+public class ReplayTraffic implements Traffic, Closeable
+{
+	private final BufferedReader reader;
+	private final double speed;
+	private int lineNumber;
+
+	public ReplayTraffic(File file, double speed) throws IOException
+	{
+		this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		this.speed = speed;
+	}
+
+	@Override
+	public Line next() throws IOException
+	{
+		String line;
+
+		while ((line = reader.readLine()) != null)
+		{
+			lineNumber++;
+
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+
+			int space = line.indexOf(' ');
+
+			try
+			{
+				long millis = Long.parseLong(line.substring(0, Math.max(space, 0)));
+
+				return new Line((long) (TimeUnit.MILLISECONDS.toNanos(millis) / speed), line.substring(space + 1));
+			}
+			catch (NumberFormatException ex)
+			{
+				throw new IOException(String.format("Line %s doesn't start with a time in milliseconds", lineNumber));
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
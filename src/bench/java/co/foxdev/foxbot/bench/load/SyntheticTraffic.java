@@ -0,0 +1,130 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench.load;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat spread evenly over a set of channels at a fixed rate, with a share of the lines being
+ * "ping me" commands the bot will answer, and optional storms of users joining and leaving.
+ */
+public class SyntheticTraffic implements Traffic
+{
+	private static final String[] CHATTER = {
+			"has anyone tried the new build yet?",
+			"mine keeps timing out on startup, no idea why",
+			"did you clear the cache first",
+			"the changelog is up at https://github.com/FoxDev/FoxBot/commits/master",
+			"lol",
+			"brb, making tea",
+			"that was fixed ages ago, update your client",
+			"works for me on the latest snapshot"
+	};
+
+	private final List<String> channels;
+	private final int users;
+	private final long intervalNanos;
+	private final long durationNanos;
+	private final double commandRatio;
+	private final String command;
+	private final long stormEveryNanos;
+	private final int stormSize;
+	private final Random random;
+	private final Deque<Line> storm = new ArrayDeque<>();
+	private long index;
+	private long nextStorm;
+
+	/**
+	 * @param rate lines per second, not counting storms
+	 * @param stormEvery seconds between join and part storms, or 0 for none
+	 */
+	public SyntheticTraffic(List<String> channels, int users, int rate, int duration, double commandRatio, char commandPrefix, int stormEvery, int stormSize, long seed)
+	{
+		this.channels = Collections.unmodifiableList(new ArrayList<>(channels));
+		this.users = users;
+		this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		this.durationNanos = TimeUnit.SECONDS.toNanos(duration);
+		this.commandRatio = commandRatio;
+		this.command = commandPrefix + "ping me";
+		this.stormEveryNanos = TimeUnit.SECONDS.toNanos(stormEvery);
+		this.stormSize = stormSize;
+		this.random = new Random(seed);
+		this.nextStorm = stormEvery > 0 ? stormEveryNanos : Long.MAX_VALUE;
+	}
+
+	@Override
+	public Line next()
+	{
+		if (!storm.isEmpty())
+		{
+			return storm.poll();
+		}
+
+		long offset = index * intervalNanos;
+
+		if (offset >= durationNanos)
+		{
+			return null;
+		}
+
+		if (offset >= nextStorm)
+		{
+			queueStorm(offset);
+			nextStorm += stormEveryNanos;
+			return storm.poll();
+		}
+
+		index++;
+
+		String channel = channels.get(random.nextInt(channels.size()));
+		String text = random.nextDouble() < commandRatio ? command : CHATTER[random.nextInt(CHATTER.length)];
+
+		return new Line(offset, ":" + hostmask(random.nextInt(users)) + " PRIVMSG " + channel + " :" + text);
+	}
+
+	// Storm users are separate from the chatting ones, so their parts don't leave anyone waiting on a reply
+	private void queueStorm(long offset)
+	{
+		List<String> parts = new ArrayList<>(stormSize);
+
+		for (int i = 0; i < stormSize; i++)
+		{
+			String hostmask = "storm" + i + "!storm" + i + "@sim.example";
+			String channel = channels.get(random.nextInt(channels.size()));
+
+			storm.add(new Line(offset, ":" + hostmask + " JOIN " + channel));
+			parts.add(":" + hostmask + " PART " + channel + " :Leaving");
+		}
+
+		for (String part : parts)
+		{
+			storm.add(new Line(offset, part));
+		}
+	}
+
+	private static String hostmask(int user)
+	{
+		return "user" + user + "!user" + user + "@sim.example";
+	}
+}
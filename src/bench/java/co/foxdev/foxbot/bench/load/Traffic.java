@@ -0,0 +1,42 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.bench.load;
+
+import java.io.IOException;
+
+/**
+ * Raw lines from simulated users, each with the time it should reach the bot.
+ */
+public interface Traffic
+{
+	// Returns null once there is nothing left to send.
+	Line next() throws IOException;
+
+	class Line
+	{
+		// Time since the start of the run
+		public final long offsetNanos;
+		public final String raw;
+
+		public Line(long offsetNanos, String raw)
+		{
+			this.offsetNanos = offsetNanos;
+			this.raw = raw;
+		}
+	}
+}
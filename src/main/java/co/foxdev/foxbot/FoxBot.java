@@ -21,22 +21,35 @@ import co.foxdev.foxbot.commands.Command;
 import co.foxdev.foxbot.config.Config;
 import co.foxdev.foxbot.config.ZncConfig;
 import co.foxdev.foxbot.database.*;
+import co.foxdev.foxbot.irc.ChannelJoiner;
+import co.foxdev.foxbot.irc.FoxBotFactory;
+import co.foxdev.foxbot.irc.OutboundQueue;
+import co.foxdev.foxbot.metrics.FunctionCounter;
+import co.foxdev.foxbot.metrics.Gauge;
+import co.foxdev.foxbot.metrics.MetricsRegistry;
+import co.foxdev.foxbot.metrics.MetricsServer;
+import co.foxdev.foxbot.permissions.AccountTracker;
 import co.foxdev.foxbot.permissions.PermissionManager;
+import co.foxdev.foxbot.processor.IndexProcessor;
+import co.foxdev.foxbot.urlpreview.UrlPreviewExtractor;
+import co.foxdev.foxbot.urlpreview.UrlPreviewer;
 import co.foxdev.foxbot.utils.CommandManager;
+import co.foxdev.foxbot.utils.Scheduler;
+import co.foxdev.foxbot.utils.StartupTimer;
 import com.maxmind.geoip.LookupService;
 import lombok.Getter;
 import org.pircbotx.*;
+import org.pircbotx.cap.EnableCapHandler;
 import org.pircbotx.exception.IrcException;
 import org.pircbotx.hooks.ListenerAdapter;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLSocketFactory;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -69,7 +82,16 @@ public class FoxBot
 	@Getter
 	private LookupService lookupService;
 	@Getter
-	private Reflections reflections = new Reflections("co.foxdev.foxbot");
+	private StartupTimer startupTimer;
+	@Getter
+	private Scheduler scheduler;
+	@Getter
+	private UrlPreviewer urlPreviewer;
+	@Getter
+	private ChannelJoiner channelJoiner;
+	@Getter
+	private MetricsRegistry metrics;
+	private MetricsServer metricsServer;
 
 	public static void main(String[] args)
 	{
@@ -81,6 +103,7 @@ public class FoxBot
 	{
 		instance = this;
 		logger = LoggerFactory.getLogger(getClass().getName());
+		startupTimer = new StartupTimer(this);
 		File path = new File("data/custcmds");
 
 		if (!path.exists() && !path.mkdirs())
@@ -91,11 +114,33 @@ public class FoxBot
 		}
 
 		config = new Config(this);
+		metrics = new MetricsRegistry(this);
 		zncConfig = new ZncConfig(this);
 		permissionManager = new PermissionManager(this);
 		commandManager = new CommandManager(this);
+		urlPreviewer = new UrlPreviewer(this);
+		channelJoiner = new ChannelJoiner(this);
+		startupTimer.phase("config");
 		loadDatabase();
 		database.connect();
+		scheduler = new Scheduler(this);
+		Runtime.getRuntime().addShutdownHook(new Thread("FoxBot-Shutdown")
+		{
+			@Override
+			public void run()
+			{
+				if (metricsServer != null)
+				{
+					metricsServer.stop();
+				}
+				urlPreviewer.shutdown();
+				scheduler.shutdown();
+				database.disconnect();
+			}
+		});
+		commandManager.getCustomCommandStore().load();
+		urlPreviewer.getCache().load();
+		startupTimer.phase("database");
 
 		try
 		{
@@ -106,9 +151,13 @@ public class FoxBot
 			warn("GeoIP database not found, GeoIP feature will be unavailable. Download a database from http://geolite.maxmind.com/download/geoip/database/GeoLiteCity.dat.gz");
 		}
 
+		startupTimer.phase("geoip");
 		setBotInfo();
 		registerListeners();
 		registerCommands();
+		registerExtractors();
+		registerMetrics();
+		startupTimer.phase("registration");
 		connectToServer();
 	}
 
@@ -122,8 +171,6 @@ public class FoxBot
 		log(String.format("Set auto nick change to %s", config.getAutoNickChange()));
 		configBuilder.setAutoReconnect(config.getAutoReconnect());
 		log(String.format("Set auto-reconnect to %s", config.getAutoReconnect()));
-		configBuilder.setMessageDelay(config.getMessageDelay());
-		log(String.format("Set message delay to %s", config.getMessageDelay()));
 		configBuilder.setRealName(String.format("FoxBot - A Java IRC bot written by FoxDev and owned by %s - http://foxbot.foxdev.co - Use %shelp for more info", config.getBotOwner(), config.getCommandPrefix()));
 		configBuilder.setVersion(String.format("FoxBot - A Java IRC bot written by FoxDev and owned by %s - http://foxbot.foxdev.co - Use %shelp for more info", config.getBotOwner(), config.getCommandPrefix()));
 		log(String.format("Set version to 'FoxBot - A Java IRC bot written by FoxDev and owned by %s - https://github.com/FoxDev/FoxBot - Use %shelp for more info'", config.getBotOwner(), config.getCommandPrefix()));
@@ -148,21 +195,18 @@ public class FoxBot
 			configBuilder.setNickservPassword(config.getNickservPassword());
 		}
 
-		log(String.format("Connecting to %s on port %s%s...", getConfig().getServerAddress(), getConfig().getServerPort(), getConfig().getServerSsl() ? " with SSL" : " without SSL"));
-		log(String.format("Adding channels..."));
+		configBuilder.setBotFactory(new FoxBotFactory(this));
 
-		for (String channel : config.getChannels())
+		if (config.getUseAccountTracking())
 		{
-			if (channel.contains(":"))
-			{
-				String[] parts = channel.split(":");
-
-				configBuilder.addAutoJoinChannel(parts[0], parts[1]);
-				continue;
-			}
-			configBuilder.addAutoJoinChannel(channel);
+			// Servers that don't support these just NAK them and we fall back to WHOIS
+			configBuilder.setCapEnabled(true);
+			configBuilder.addCapHandler(new EnableCapHandler(AccountTracker.ACCOUNT_NOTIFY, true));
+			configBuilder.addCapHandler(new EnableCapHandler(AccountTracker.EXTENDED_JOIN, true));
+			configBuilder.addCapHandler(new EnableCapHandler(AccountTracker.ACCOUNT_TAG, true));
 		}
 
+		log(String.format("Connecting to %s on port %s%s...", getConfig().getServerAddress(), getConfig().getServerPort(), getConfig().getServerSsl() ? " with SSL" : " without SSL"));
 		try
 		{
 			bot = new PircBotX(configBuilder.buildConfiguration());
@@ -181,9 +225,9 @@ public class FoxBot
 		ClassLoader classLoader = ClassLoader.getSystemClassLoader();
 		try
 		{
-			for (Class clazz : reflections.getSubTypesOf(ListenerAdapter.class))
+			for (String className : readIndex(IndexProcessor.LISTENER_INDEX))
 			{
-				classLoader.loadClass(clazz.getName());
+				Class clazz = classLoader.loadClass(className);
 				Constructor clazzConstructor = clazz.getConstructor(getClass());
 				ListenerAdapter listener = (ListenerAdapter) clazzConstructor.newInstance(this);
 
@@ -200,15 +244,17 @@ public class FoxBot
 	private void registerCommands()
 	{
 		ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+		List<Command> commands = new ArrayList<>();
+
 		try
 		{
-			for (Class clazz : reflections.getSubTypesOf(Command.class))
+			for (String className : readIndex(IndexProcessor.COMMAND_INDEX))
 			{
-				classLoader.loadClass(clazz.getName());
+				Class clazz = classLoader.loadClass(className);
 				Constructor clazzConstructor = clazz.getConstructor(getClass());
 				Command command = (Command) clazzConstructor.newInstance(this);
 
-				commandManager.registerCommand(command);
+				commands.add(command);
 				log(String.format("Registered command '%s'", command.getName()));
 			}
 		}
@@ -216,6 +262,222 @@ public class FoxBot
 		{
 			log(ex);
 		}
+		commandManager.registerCommands(commands);
+	}
+
+	private void registerExtractors()
+	{
+		ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+		try
+		{
+			for (String className : readIndex(IndexProcessor.EXTRACTOR_INDEX))
+			{
+				Class clazz = classLoader.loadClass(className);
+				UrlPreviewExtractor extractor = (UrlPreviewExtractor) clazz.newInstance();
+
+				urlPreviewer.getRouter().register(extractor);
+				log(String.format("Registered URL preview extractor '%s'", extractor.getClass().getSimpleName()));
+			}
+		}
+		catch (ClassNotFoundException | InstantiationException | IllegalAccessException ex)
+		{
+			log(ex);
+		}
+	}
+
+	private void registerMetrics()
+	{
+		metrics.gauge("foxbot_commands_pending", "Commands waiting for or using an executor thread", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return commandManager.getCommandExecutor().getPendingCount();
+			}
+		});
+		metrics.gauge("foxbot_scheduled_tasks", "Delayed actions waiting to run, like unbans and devoices", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return scheduler.getActiveCount();
+			}
+		});
+		metrics.gauge("foxbot_outbound_queue_depth", "Lines waiting to be sent", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return getOutboundQueue().getQueueDepth();
+			}
+		});
+		metrics.counter("foxbot_outbound_lines_sent_total", "Lines sent to the server", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return getOutboundQueue().getSentCount();
+			}
+		});
+		metrics.counter("foxbot_outbound_lines_dropped_total", "Lines dropped because a queue was full or we disconnected", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return getOutboundQueue().getDroppedCount();
+			}
+		});
+		metrics.gauge("foxbot_flood_rate", "Lines per second flood control currently allows", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return getOutboundQueue().getFloodRate();
+			}
+		});
+		metrics.gauge("foxbot_join_duration_milliseconds", "Time taken to join every configured channel after the last connect", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return channelJoiner.getLastJoinTime();
+			}
+		});
+		metrics.gauge("foxbot_url_preview_cache_size", "URL previews in the cache", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return urlPreviewer.getCache().getSize();
+			}
+		});
+		metrics.counter("foxbot_url_preview_cache_hits_total", "URL preview cache hits", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return urlPreviewer.getCache().getHits();
+			}
+		});
+		metrics.counter("foxbot_url_preview_cache_misses_total", "URL preview cache misses", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return urlPreviewer.getCache().getMisses();
+			}
+		});
+		metrics.gauge("foxbot_rate_limit_buckets", "Users and channels being rate limited per command", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return commandManager.getRateLimiter().getBucketCount();
+			}
+		});
+		metrics.counter("foxbot_url_preview_cache_evictions_total", "URL previews evicted from the cache", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return urlPreviewer.getCache().getEvictions();
+			}
+		});
+		metrics.gauge("foxbot_database_connections_leased", "Database connections in use", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getLeasedConnections();
+			}
+		});
+		metrics.gauge("foxbot_database_connections_free", "Idle database connections", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getFreeConnections();
+			}
+		});
+		metrics.gauge("foxbot_audit_queue_depth", "Kicks and bans waiting to be written", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getAuditQueue().getQueueDepth();
+			}
+		});
+		metrics.gauge("foxbot_audit_last_flush_milliseconds", "Time taken by the last audit log flush", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getAuditQueue().getLastFlushTime();
+			}
+		});
+		metrics.gauge("foxbot_audit_max_flush_milliseconds", "Time taken by the slowest audit log flush", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getAuditQueue().getMaxFlushTime();
+			}
+		});
+		metrics.counter("foxbot_audit_records_written_total", "Kicks and bans written to the database", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getAuditQueue().getFlushedCount();
+			}
+		});
+		metrics.counter("foxbot_audit_records_dropped_total", "Kicks and bans dropped because the queue was full or the database kept failing", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return database.getAuditQueue().getDroppedCount();
+			}
+		});
+
+		if (config.getMetricsHttpEnabled())
+		{
+			metricsServer = new MetricsServer(this);
+			metricsServer.start(config.getMetricsHttpAddress(), config.getMetricsHttpPort());
+		}
+	}
+
+	// The index files are written by IndexProcessor when the bot is compiled
+	private List<String> readIndex(String index)
+	{
+		List<String> classNames = new ArrayList<>();
+		InputStream stream = getClass().getClassLoader().getResourceAsStream(index);
+
+		if (stream == null)
+		{
+			error(String.format("Could not find %s, was the bot built with the index processor?", index));
+			return classNames;
+		}
+
+		try
+		{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				if (!line.isEmpty())
+				{
+					classNames.add(line);
+				}
+			}
+			reader.close();
+		}
+		catch (IOException ex)
+		{
+			log(ex);
+		}
+		return classNames;
 	}
 
 	private void loadDatabase()
@@ -235,6 +497,8 @@ public class FoxBot
 				log("Using SQLite for database features");
 				break;
 		}
+
+		database = new TimedDatabase(this, database);
 	}
 
 	public void log(String line)
@@ -307,6 +571,11 @@ public class FoxBot
 		System.exit(0);
 	}
 
+	public OutboundQueue getOutboundQueue()
+	{
+		return (OutboundQueue) bot.sendRaw();
+	}
+
 	@Deprecated
 	public User getUserBot()
 	{
@@ -391,6 +660,14 @@ public class FoxBot
 		return bot.getUserChannelDao().getAllChannels().asList();
 	}
 
+	// Whether this nick is in any of our channels, without creating a User for it like getUser() would.
+	public boolean sharesChannel(String nick)
+	{
+		UserChannelDao<User, Channel> dao = bot.getUserChannelDao();
+
+		return dao.userExists(nick) && !dao.getChannels(dao.getUser(nick)).isEmpty();
+	}
+
 	@Deprecated
 	public void changeNick(String newNick)
 	{
@@ -0,0 +1,44 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.commands;
+
+import org.pircbotx.hooks.events.MessageEvent;
+
+/**
+ * Base for commands that only need the arguments split on spaces.
+ */
+public abstract class ArrayCommand extends Command
+{
+    public ArrayCommand(String name)
+    {
+        super(name);
+    }
+
+    public ArrayCommand(String name, String permission, String... aliases)
+    {
+        super(name, permission, aliases);
+    }
+
+    @Override
+    public final void execute(final MessageEvent event, final CommandArgs args)
+    {
+        execute(event, args.toArray());
+    }
+
+    public abstract void execute(final MessageEvent event, final String[] args);
+}
@@ -52,5 +52,12 @@ public abstract class Command
         return aliases;
     }
 
-    public abstract void execute(final MessageEvent event, final String[] args);
+    // Blocking commands are run off the IRC event thread. Override this for commands that only send a few lines.
+    public boolean isBlocking()
+    {
+        return true;
+    }
+
+    // Commands that only want the arguments split on spaces can extend ArrayCommand instead.
+    public abstract void execute(final MessageEvent event, final CommandArgs args);
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.commands;
+
+import java.util.Arrays;
+
+/**
+ * A command as it was typed, split up only as far as something asks for. Arguments are separated by
+ * spaces, and one wrapped in double quotes can contain spaces. Not thread safe, but it's fine to hand
+ * one to another thread once it's built.
+ */
+public final class CommandArgs
+{
+	private final String line;
+	private final int nameStart;
+	private final int nameEnd;
+	// Where each argument starts as typed, and where its text starts and ends without quotes
+	private int[] starts;
+	private int[] begins;
+	private int[] ends;
+	private int count = -1;
+
+	/**
+	 * @param offset where the command name starts in the line
+	 */
+	public CommandArgs(String line, int offset)
+	{
+		int space = line.indexOf(' ', offset);
+
+		this.line = line;
+		this.nameStart = offset;
+		this.nameEnd = space < 0 ? line.length() : space;
+	}
+
+	/**
+	 * Returns the command in a channel message, or null if it isn't one. Messages that aren't commands
+	 * are turned away without allocating anything.
+	 */
+	public static CommandArgs parse(String message, char prefix, String nick)
+	{
+		if (message.isEmpty())
+		{
+			return null;
+		}
+
+		if (message.charAt(0) == prefix)
+		{
+			return new CommandArgs(message, 1);
+		}
+
+		// "FoxBot, command args"
+		if (message.startsWith(nick) && message.startsWith(", ", nick.length()))
+		{
+			return new CommandArgs(message, nick.length() + 2);
+		}
+		return null;
+	}
+
+	// The command name as typed, which is empty if there was a space straight after the prefix.
+	public String getName()
+	{
+		return line.substring(nameStart, nameEnd);
+	}
+
+	public int size()
+	{
+		tokenize();
+		return count;
+	}
+
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	// The argument at index, without any quotes around it.
+	public String get(int index)
+	{
+		checkIndex(index);
+		return line.substring(begins[index], ends[index]);
+	}
+
+	/**
+	 * Everything from the argument at from to the end of the line, exactly as typed, or an empty
+	 * string if there aren't that many arguments.
+	 */
+	public String rest(int from)
+	{
+		return rest(from, size());
+	}
+
+	/**
+	 * The arguments from from up to but not including to, exactly as typed.
+	 */
+	public String rest(int from, int to)
+	{
+		tokenize();
+
+		if (from >= to || from >= count)
+		{
+			return "";
+		}
+		checkIndex(to - 1);
+		return line.substring(starts[from], rawEnd(to - 1));
+	}
+
+	// The arguments as an array, for commands that still take one.
+	public String[] toArray()
+	{
+		String[] args = new String[size()];
+
+		for (int i = 0; i < args.length; i++)
+		{
+			args[i] = get(i);
+		}
+		return args;
+	}
+
+	@Override
+	public String toString()
+	{
+		return line.substring(nameStart);
+	}
+
+	private void tokenize()
+	{
+		if (count >= 0)
+		{
+			return;
+		}
+
+		starts = new int[4];
+		begins = new int[4];
+		ends = new int[4];
+		count = 0;
+
+		int length = line.length();
+		int i = nameEnd;
+
+		while (i < length)
+		{
+			if (line.charAt(i) == ' ')
+			{
+				i++;
+				continue;
+			}
+
+			int close = line.charAt(i) == '"' ? closingQuote(i + 1) : -1;
+
+			if (close >= 0)
+			{
+				add(i, i + 1, close);
+				i = close + 1;
+				continue;
+			}
+
+			// Unquoted, or a quote that's never closed and so is just part of the text
+			int end = line.indexOf(' ', i);
+
+			end = end < 0 ? length : end;
+			add(i, i, end);
+			i = end;
+		}
+	}
+
+	// A quote only closes an argument if it's followed by a space or the end of the line.
+	private int closingQuote(int from)
+	{
+		int quote = line.indexOf('"', from);
+
+		while (quote >= 0 && quote + 1 < line.length() && line.charAt(quote + 1) != ' ')
+		{
+			quote = line.indexOf('"', quote + 1);
+		}
+		return quote;
+	}
+
+	private void add(int start, int begin, int end)
+	{
+		if (count == starts.length)
+		{
+			starts = Arrays.copyOf(starts, count * 2);
+			begins = Arrays.copyOf(begins, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		starts[count] = start;
+		begins[count] = begin;
+		ends[count] = end;
+		count++;
+	}
+
+	private int rawEnd(int index)
+	{
+		return begins[index] == starts[index] ? ends[index] : ends[index] + 1;
+	}
+
+	private void checkIndex(int index)
+	{
+		tokenize();
+
+		if (index < 0 || index >= count)
+		{
+			throw new IndexOutOfBoundsException(String.format("Argument %s of %s", index, count));
+		}
+	}
+}
@@ -32,14 +32,14 @@ public class CommandBan extends Command
         this.foxbot = foxbot;
     }
 
-    public void execute(final MessageEvent event, final String[] args)
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
         Channel channel = event.getChannel();
 
-        if (args.length > 1)
+        if (args.size() > 1)
         {
-            User target = foxbot.getUser(args[0]);
+            User target = foxbot.getUser(args.get(0));
 
             if (!channel.getUsers().contains(target))
             {
@@ -47,17 +47,7 @@ public class CommandBan extends Command
                 return;
             }
 
-            // Please don't throttle me ;_;
-            try
-            {
-                Thread.sleep(foxbot.getConfig().getKickDelay());
-            }
-            catch (InterruptedException ex)
-            {
-	            foxbot.log(ex);
-            }
-
-            if (foxbot.getPermissionManager().userHasQuietPermission(target, "protection.ban") || args[0].equals(foxbot.getNick()))
+            if (foxbot.getPermissionManager().userHasQuietPermission(target, "protection.ban") || args.get(0).equals(foxbot.getNick()))
             {
                 foxbot.sendNotice(sender, "You cannot ban that user!");
                 return;
@@ -65,19 +55,14 @@ public class CommandBan extends Command
 
             String hostmask = "*!*@*" + target.getHostmask();
 
-            StringBuilder reason = new StringBuilder(args[1]);
-
-            for (int arg = 2; arg < args.length; arg++)
-            {
-                reason.append(" ").append(args[arg]);
-            }
+            String reason = args.rest(1);
 
-            foxbot.kick(channel, target, String.format("Ban requested by %s - %s", sender.getNick(), Utils.colourise(reason.toString()) + Colors.NORMAL));
+            foxbot.kick(channel, target, String.format("Ban requested by %s - %s", sender.getNick(), Utils.colourise(reason) + Colors.NORMAL));
 
             long banTime = System.currentTimeMillis();
 
             foxbot.ban(channel, hostmask);
-            foxbot.getDatabase().addBan(channel, target, reason.toString(), sender, banTime);
+            foxbot.getDatabase().addBan(channel, target, reason, sender, banTime);
 
             if (foxbot.getConfig().getUnbanTimer() != 0)
             {
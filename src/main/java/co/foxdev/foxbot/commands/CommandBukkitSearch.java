@@ -29,7 +29,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 
 import java.io.IOException;
 
-public class CommandBukkitSearch extends Command
+public class CommandBukkitSearch extends ArrayCommand
 {
 	private final FoxBot foxbot;
 
@@ -21,7 +21,7 @@ import co.foxdev.foxbot.FoxBot;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandCommands extends Command
+public class CommandCommands extends ArrayCommand
 {
 	private final FoxBot foxbot;
 
@@ -31,22 +31,17 @@ public class CommandCommands extends Command
 		this.foxbot = foxbot;
 	}
 
+	@Override
+	public boolean isBlocking()
+	{
+		return false;
+	}
+
 	@Override
 	public void execute(final MessageEvent event, final String[] args)
 	{
 		User sender = event.getUser();
 
-		StringBuilder sb = new StringBuilder();
-
-		for (Command command : foxbot.getCommandManager().getCommands())
-		{
-			if (!sb.toString().contains(command.getName()))
-			{
-				sb.append(command.getName()).append(", ");
-			}
-		}
-
-		String cmdList = sb.toString();
-		foxbot.sendNotice(sender, cmdList.substring(0, cmdList.lastIndexOf(",")));
+		foxbot.sendNotice(sender, foxbot.getCommandManager().getRegistry().getCommandList());
 	}
 }
\ No newline at end of file
@@ -22,7 +22,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandDevoice extends Command
+public class CommandDevoice extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -32,6 +32,12 @@ public class CommandDevoice extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     @Override
     public void execute(final MessageEvent event, final String[] args)
     {
@@ -20,7 +20,6 @@ package co.foxdev.foxbot.commands;
 import bsh.EvalError;
 import bsh.Interpreter;
 import co.foxdev.foxbot.FoxBot;
-import org.apache.commons.lang3.StringUtils;
 import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
@@ -49,7 +48,7 @@ public class CommandExec extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
         Channel channel = event.getChannel();
@@ -59,7 +58,7 @@ public class CommandExec extends Command
             interpreter.set("sender", sender);
             interpreter.set("channel", channel);
             interpreter.set("event", event);
-            interpreter.eval(StringUtils.join(args, " ").trim());
+            interpreter.eval(args.rest(0));
         }
         catch (EvalError ex)
         {
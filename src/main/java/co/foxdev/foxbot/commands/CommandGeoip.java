@@ -23,7 +23,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandGeoip extends Command
+public class CommandGeoip extends ArrayCommand
 {
     private final FoxBot foxbot;
 
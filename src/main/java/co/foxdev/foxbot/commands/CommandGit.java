@@ -23,7 +23,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandGit extends Command
+public class CommandGit extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -33,6 +33,12 @@ public class CommandGit extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     @Override
     public void execute(final MessageEvent event, final String[] args)
     {
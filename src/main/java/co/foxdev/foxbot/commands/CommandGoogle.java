@@ -20,7 +20,6 @@ package co.foxdev.foxbot.commands;
 import co.foxdev.foxbot.FoxBot;
 import co.foxdev.foxbot.utils.Utils;
 import org.apache.commons.lang3.StringEscapeUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.Connection;
@@ -42,14 +41,14 @@ public class CommandGoogle extends Command
 	}
 
 	@Override
-	public void execute(MessageEvent event, String[] args)
+	public void execute(MessageEvent event, CommandArgs args)
 	{
 		User sender = event.getUser();
 		Channel channel = event.getChannel();
 
-		if (args.length != 0)
+		if (!args.isEmpty())
 		{
-			String query = StringUtils.join(args, " ");
+			String query = args.rest(0);
 			String address = "http://ajax.googleapis.com/ajax/services/search/web?v=1.0&q=" + query;
 
 			Connection conn = Jsoup.connect(address).ignoreContentType(true).followRedirects(true).timeout(1000);
@@ -37,14 +37,20 @@ public class CommandHash extends Command
 	}
 
 	@Override
-	public void execute(final MessageEvent event, final String[] args)
+	public boolean isBlocking()
+	{
+		return false;
+	}
+
+	@Override
+	public void execute(final MessageEvent event, final CommandArgs args)
 	{
 		User sender = event.getUser();
 		Channel channel = event.getChannel();
 
-		if (args.length > 1)
+		if (args.size() > 1)
 		{
-			String hashType = args[0].toUpperCase();
+			String hashType = args.get(0).toUpperCase();
 			MessageDigest digest;
 
 			try
@@ -57,15 +63,8 @@ public class CommandHash extends Command
 				return;
 			}
 
-			StringBuilder stringToHash = new StringBuilder(args[1]);
-
-			for (int i = 2; i < args.length; i++)
-			{
-				stringToHash.append(" ").append(args[i]);
-			}
-
 			digest.reset();
-			channel.send().message(String.format("(%s) %s", Utils.munge(sender.getNick()), byteArrayToHexString(digest.digest(stringToHash.toString().getBytes()))));
+			channel.send().message(String.format("(%s) %s", Utils.munge(sender.getNick()), byteArrayToHexString(digest.digest(args.rest(1).getBytes()))));
 			return;
 		}
 		foxbot.sendNotice(sender, String.format("Wrong number of args! Use %shash <SHA-1|SHA-256|MD5> <text>", foxbot.getConfig().getCommandPrefix()));
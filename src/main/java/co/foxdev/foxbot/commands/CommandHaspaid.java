@@ -24,7 +24,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandHaspaid extends Command
+public class CommandHaspaid extends ArrayCommand
 {
     private final FoxBot foxbot;
 
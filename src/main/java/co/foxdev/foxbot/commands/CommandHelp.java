@@ -21,7 +21,7 @@ import co.foxdev.foxbot.FoxBot;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandHelp extends Command
+public class CommandHelp extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -31,6 +31,12 @@ public class CommandHelp extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     public void execute(final MessageEvent event, final String[] args)
     {
         User sender = event.getUser();
@@ -26,7 +26,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 
 import java.util.regex.Pattern;
 
-public class CommandInsult extends Command
+public class CommandInsult extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -22,7 +22,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandJoin extends Command
+public class CommandJoin extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -32,6 +32,12 @@ public class CommandJoin extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     @Override
     public void execute(final MessageEvent event, final String[] args)
     {
@@ -33,14 +33,14 @@ public class CommandKick extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
         Channel channel = event.getChannel();
 
-        if (args.length > 1)
+        if (args.size() > 1)
         {
-            User target = foxbot.getUser(args[0]);
+            User target = foxbot.getUser(args.get(0));
 
             if (!channel.getUsers().contains(target))
             {
@@ -48,33 +48,17 @@ public class CommandKick extends Command
                 return;
             }
 
-            // Delay the kick to prevent whois throttling due to the permission check on both users
-            try
-            {
-                Thread.sleep(foxbot.getConfig().getKickDelay());
-            }
-            catch (InterruptedException ex)
-            {
-	            foxbot.log(ex);
-            }
-
-            if (foxbot.getPermissionManager().userHasQuietPermission(target, "protection.kick") || args[0].equals(foxbot.getNick()))
+            if (foxbot.getPermissionManager().userHasQuietPermission(target, "protection.kick") || args.get(0).equals(foxbot.getNick()))
             {
                 foxbot.sendNotice(sender, "You cannot kick that user!");
                 return;
             }
 
-            StringBuilder reason = new StringBuilder(args[1]);
-
-            for (int arg = 2; arg < args.length; arg++)
-            {
-                reason.append(" ").append(args[arg]);
-            }
-
+            String reason = args.rest(1);
             long kickTime = System.currentTimeMillis();
 
-            foxbot.kick(channel, target, String.format("Kick requested by %s - %s", sender.getNick(), Utils.colourise(reason.toString()) + Colors.NORMAL));
-            foxbot.getDatabase().addKick(channel, target, reason.toString(), sender, kickTime);
+            foxbot.kick(channel, target, String.format("Kick requested by %s - %s", sender.getNick(), Utils.colourise(reason) + Colors.NORMAL));
+            foxbot.getDatabase().addKick(channel, target, reason, sender, kickTime);
             return;
         }
         foxbot.sendNotice(sender, String.format("Wrong number of args! Use %skick <user> <reason>", foxbot.getConfig().getCommandPrefix()));
@@ -22,7 +22,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandKill extends Command
+public class CommandKill extends ArrayCommand
 {
 
     private final FoxBot foxbot;
@@ -45,7 +45,9 @@ public class CommandKill extends Command
                 foxbot.partChannel(channel, "Killed by " + sender.getNick());
             }
 
-            foxbot.getDatabase().disconnect();
+            // Waits for the parts to be sent first
+            event.getBot().sendIRC().quitServer("Killed by " + sender.getNick());
+            // The shutdown hook disconnects the database
             foxbot.shutdown(true);
             return;
         }
@@ -26,7 +26,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 
 import java.io.IOException;
 
-public class CommandMcPing extends Command
+public class CommandMcPing extends ArrayCommand
 {
 	private final FoxBot foxbot;
 
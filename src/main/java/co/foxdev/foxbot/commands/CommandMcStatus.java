@@ -28,7 +28,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 
 import java.io.IOException;
 
-public class CommandMcStatus extends Command
+public class CommandMcStatus extends ArrayCommand
 {
     private final FoxBot foxbot;
     private String online = Colors.DARK_GREEN + "✔" + Colors.NORMAL;
@@ -33,21 +33,21 @@ public class CommandMessage extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
+    @Override
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
 
-        if (args.length > 1)
+        if (args.size() > 1)
         {
-            User target = foxbot.getUser(args[0]);
-            StringBuilder message = new StringBuilder(args[1]);
-
-            for (int arg = 2; arg < args.length; arg++)
-            {
-                message.append(" ").append(args[arg]);
-            }
+            User target = foxbot.getUser(args.get(0));
 
-            foxbot.sendMessage(target, Utils.colourise(message.toString()));
+            foxbot.sendMessage(target, Utils.colourise(args.rest(1)));
             return;
         }
         foxbot.sendNotice(sender, String.format("Wrong number of args! Use %spm <user> <message>", foxbot.getConfig().getCommandPrefix()));
@@ -0,0 +1,55 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.commands;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.customcommands.CustomCommandStore;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+
+public class CommandMigrateCmds extends ArrayCommand
+{
+    private final FoxBot foxbot;
+
+    public CommandMigrateCmds(FoxBot foxbot)
+    {
+        super("migratecmds", "command.migratecmds");
+        this.foxbot = foxbot;
+    }
+
+    @Override
+    public void execute(final MessageEvent event, final String[] args)
+    {
+        User sender = event.getUser();
+        CustomCommandStore store = foxbot.getCommandManager().getCustomCommandStore();
+
+        if (args.length == 0)
+        {
+            if (store.getStorage().getName().equals("directory"))
+            {
+                foxbot.sendNotice(sender, "Custom commands are already stored in data/custcmds! Change custom-commands.storage and restart first.");
+                return;
+            }
+
+            foxbot.sendNotice(sender, "Migrating custom commands...");
+            foxbot.sendNotice(sender, String.format("Copied %s custom commands to %s storage.", store.migrate(), store.getStorage().getName()));
+            return;
+        }
+        foxbot.sendNotice(sender, String.format("Wrong number of args! Use %smigratecmds", foxbot.getConfig().getCommandPrefix()));
+    }
+}
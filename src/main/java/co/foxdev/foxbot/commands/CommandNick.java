@@ -21,7 +21,7 @@ import co.foxdev.foxbot.FoxBot;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandNick extends Command
+public class CommandNick extends ArrayCommand
 {
 	private final FoxBot foxbot;
 
@@ -31,6 +31,12 @@ public class CommandNick extends Command
 		this.foxbot = foxbot;
 	}
 
+	@Override
+	public boolean isBlocking()
+	{
+		return false;
+	}
+
 	@Override
 	public void execute(MessageEvent event, String[] args)
 	{
@@ -22,7 +22,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandPart extends Command
+public class CommandPart extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -32,6 +32,12 @@ public class CommandPart extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     @Override
     public void execute(final MessageEvent event, final String[] args)
     {
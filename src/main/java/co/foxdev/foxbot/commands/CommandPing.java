@@ -26,7 +26,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 import java.io.IOException;
 import java.net.*;
 
-public class CommandPing extends Command
+public class CommandPing extends ArrayCommand
 {
 
     private final FoxBot foxbot;
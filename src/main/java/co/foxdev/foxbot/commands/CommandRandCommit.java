@@ -24,7 +24,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandRandCommit extends Command
+public class CommandRandCommit extends ArrayCommand
 {
     private final FoxBot foxbot;
 
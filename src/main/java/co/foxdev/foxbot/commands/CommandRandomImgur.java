@@ -28,7 +28,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 import java.io.IOException;
 import java.util.Random;
 
-public class CommandRandomImgur extends Command
+public class CommandRandomImgur extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -21,7 +21,7 @@ import co.foxdev.foxbot.FoxBot;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandReload extends Command
+public class CommandReload extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -24,7 +24,7 @@ import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.xbill.DNS.*;
 
-public class CommandResolve extends Command
+public class CommandResolve extends ArrayCommand
 {
     private final FoxBot foxbot;
 
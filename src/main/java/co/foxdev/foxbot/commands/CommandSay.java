@@ -34,58 +34,49 @@ public class CommandSay extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
+    @Override
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
         Channel channel = event.getChannel();
 
-        if (args.length > 0 && !(args[0].startsWith("#") && args.length == 1))
+        if (args.size() > 0 && !(args.get(0).startsWith("#") && args.size() == 1))
         {
-            StringBuilder message;
+            // A trailing -s keeps the bot in the other channel afterwards
+            boolean stay = args.get(args.size() - 1).equalsIgnoreCase("-s");
+            int end = stay ? args.size() - 1 : args.size();
 
-            if (args[0].startsWith("#"))
+            if (args.get(0).startsWith("#"))
             {
-	            Channel target = foxbot.getChannel(args[0]);
-                message = new StringBuilder(args[1]);
-
-                for (int arg = 2; arg < args.length; arg++)
-                {
-                    if (!args[arg].equalsIgnoreCase("-s"))
-                    {
-                        message.append(" ").append(args[arg]);
-                    }
-                }
+	            Channel target = foxbot.getChannel(args.get(0));
+                String message = args.rest(1, end);
 
-                if (foxbot.getChannel(args[0]).isInviteOnly())
+                if (target.isInviteOnly())
                 {
-                    foxbot.sendNotice(sender, String.format("%s is invite only!", args[0]));
+                    foxbot.sendNotice(sender, String.format("%s is invite only!", args.get(0)));
                     return;
                 }
 
                 foxbot.joinChannel(target);
 
-                if (!args[args.length - 1].equalsIgnoreCase("-s"))
+                if (!stay)
                 {
-                    foxbot.sendMessage(target, Utils.colourise(message.toString()));
-                    foxbot.partChannel(foxbot.getChannel(args[0]));
-                    foxbot.sendNotice(sender, String.format("Message sent to %s, and channel has been left", args[0]));
+                    foxbot.sendMessage(target, Utils.colourise(message));
+                    foxbot.partChannel(target);
+                    foxbot.sendNotice(sender, String.format("Message sent to %s, and channel has been left", args.get(0)));
                     return;
                 }
-                foxbot.sendMessage(target, Utils.colourise(message.toString()));
-                foxbot.sendNotice(sender, String.format("Message sent to %s", args[0]));
+                foxbot.sendMessage(target, Utils.colourise(message));
+                foxbot.sendNotice(sender, String.format("Message sent to %s", args.get(0)));
                 return;
             }
 
-            message = new StringBuilder(args[0]);
-
-            for (int arg = 1; arg < args.length; arg++)
-            {
-                if (!args[arg].equalsIgnoreCase("-s"))
-                {
-                    message.append(" ").append(args[arg]);
-                }
-            }
-            channel.send().message(Utils.colourise(message.toString()));
+            channel.send().message(Utils.colourise(args.rest(0, end)));
             return;
         }
         foxbot.sendNotice(sender, String.format("Wrong number of args! Use %ssay [#channel] <message> [-s]", foxbot.getConfig().getCommandPrefix()));
@@ -32,30 +32,19 @@ public class CommandSetCmd extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
         Channel channel = event.getChannel();
 
-        if (args.length > 0)
+        if (args.size() > 0)
         {
             // Ops should be able to add custom commands for their own channels.
             if (!channel.getNormalUsers().contains(sender) && !channel.hasVoice(sender))
             {
-	            StringBuilder builder = new StringBuilder("");
+                String command = args.get(0);
 
-                String command = args[0];
-
-	            if (args.length > 1)
-	            {
-		            builder = new StringBuilder(args[1]);
-
-		            for (int arg = 2; arg < args.length; arg++)
-		            {
-			            builder.append(" ").append(args[arg]);
-		            }
-	            }
-                foxbot.sendNotice(sender, String.format("Command '%s' %s for %s", command, Utils.addCustomCommand(channel.getName(), command, builder.toString()) ? "set" : "deleted" , channel.getName()));
+                foxbot.sendNotice(sender, String.format("Command '%s' %s for %s", command, Utils.addCustomCommand(channel.getName(), command, args.rest(1)) ? "set" : "deleted" , channel.getName()));
                 return;
             }
             foxbot.sendNotice(sender, String.format("Only channel half-ops and above can set custom commands!"));
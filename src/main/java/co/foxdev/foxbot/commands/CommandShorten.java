@@ -25,7 +25,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 import java.io.*;
 import java.net.*;
 
-public class CommandShorten extends Command
+public class CommandShorten extends ArrayCommand
 {
 	private final FoxBot foxbot;
 
@@ -19,7 +19,7 @@ import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandSound extends Command
+public class CommandSound extends ArrayCommand
 {
     private final FoxBot foxbot;
 
@@ -29,6 +29,12 @@ public class CommandSound extends Command
         this.foxbot = foxbot;
     }
 
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
     @Override
     public void execute(final MessageEvent event, final String[] args)
     {
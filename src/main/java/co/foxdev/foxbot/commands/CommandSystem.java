@@ -37,24 +37,19 @@ public class CommandSystem extends Command
 	}
 
 	@Override
-	public void execute(MessageEvent event, String[] args)
+	public void execute(MessageEvent event, CommandArgs args)
 	{
 		User sender = event.getUser();
 		Channel channel = event.getChannel();
 
-		if (args.length > 0)
+		if (args.size() > 0)
 		{
-			StringBuilder command = new StringBuilder();
-			boolean verbose = args[0].equals("-v");
-
-			for (int i = verbose ? 1 : 0; i < args.length; i++)
-			{
-				command.append(args[i]).append(" ");
-			}
+			boolean verbose = args.get(0).equals("-v");
+			String command = args.rest(verbose ? 1 : 0);
 
 			try
 			{
-				Process proc = runtime.exec(command.toString());
+				Process proc = runtime.exec(command);
 				BufferedReader stdInput = new BufferedReader(new InputStreamReader(proc.getInputStream()));
 				BufferedReader stdError = new BufferedReader(new InputStreamReader(proc.getErrorStream()));
 
@@ -35,13 +35,13 @@ public class CommandTell extends Command
     }
 
     @Override
-    public void execute(final MessageEvent event, final String[] args)
+    public void execute(final MessageEvent event, final CommandArgs args)
     {
         User sender = event.getUser();
 
-        if (args.length == 1)
+        if (args.size() == 1)
         {
-            if (args[0].equalsIgnoreCase("list"))
+            if (args.get(0).equalsIgnoreCase("list"))
             {
                 List<String> tells = foxbot.getDatabase().getTells(sender.getNick(), true);
 
@@ -57,7 +57,7 @@ public class CommandTell extends Command
                 return;
             }
 
-            if (args[0].equalsIgnoreCase("clean"))
+            if (args.get(0).equalsIgnoreCase("clean"))
             {
                 foxbot.getDatabase().cleanTells(sender.getNick());
                 foxbot.sendNotice(sender, "Deleted all of your read messages.");
@@ -65,18 +65,11 @@ public class CommandTell extends Command
             }
         }
 
-        if (args.length > 1)
+        if (args.size() > 1)
         {
-            String nick = args[0];
+            String nick = args.get(0);
 
-            StringBuilder message = new StringBuilder(args[1]);
-
-            for (int arg = 2; arg < args.length; arg++)
-            {
-                message.append(" ").append(args[arg]);
-            }
-
-            foxbot.getDatabase().addTell(sender.getNick(), nick, message.toString());
+            foxbot.getDatabase().addTell(sender.getNick(), nick, args.rest(1));
             foxbot.sendNotice(sender, String.format("Tell added for %s", nick));
             return;
         }
@@ -28,7 +28,7 @@ import java.io.FileNotFoundException;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
-public class CommandUptime extends Command
+public class CommandUptime extends ArrayCommand
 {
     private final FoxBot foxbot;
 
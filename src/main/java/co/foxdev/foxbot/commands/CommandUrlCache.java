@@ -0,0 +1,64 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.commands;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.urlpreview.UrlPreviewCache;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+
+public class CommandUrlCache extends ArrayCommand
+{
+    private final FoxBot foxbot;
+
+    public CommandUrlCache(FoxBot foxbot)
+    {
+        super("urlcache", "command.urlcache");
+        this.foxbot = foxbot;
+    }
+
+    @Override
+    public boolean isBlocking()
+    {
+        return false;
+    }
+
+    @Override
+    public void execute(final MessageEvent event, final String[] args)
+    {
+        User sender = event.getUser();
+        UrlPreviewCache cache = foxbot.getUrlPreviewer().getCache();
+
+        if (args.length == 0)
+        {
+            long lookups = cache.getHits() + cache.getMisses();
+
+            foxbot.sendNotice(sender, String.format("URL preview cache: %s/%s entries, %s hits, %s misses (%s%% hit rate), %s evictions, %s expirations, %s fetches in progress",
+                    cache.getSize(), cache.getMaxSize(), cache.getHits(), cache.getMisses(), lookups == 0 ? 0 : cache.getHits() * 100 / lookups, cache.getEvictions(), cache.getExpirations(), foxbot.getUrlPreviewer().getPendingCount()));
+            return;
+        }
+
+        if (args.length == 1 && args[0].equalsIgnoreCase("clear"))
+        {
+            cache.clear();
+            foxbot.sendNotice(sender, "URL preview cache cleared.");
+            return;
+        }
+        foxbot.sendNotice(sender, String.format("Wrong number of args! Use %surlcache [clear]", foxbot.getConfig().getCommandPrefix()));
+    }
+}
@@ -18,14 +18,14 @@
 package co.foxdev.foxbot.commands.znc;
 
 import co.foxdev.foxbot.FoxBot;
-import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.ArrayCommand;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class CommandAddNetwork extends Command
+public class CommandAddNetwork extends ArrayCommand
 {
     private final FoxBot foxbot;
 
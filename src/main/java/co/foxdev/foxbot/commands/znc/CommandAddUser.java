@@ -18,7 +18,7 @@
 package co.foxdev.foxbot.commands.znc;
 
 import co.foxdev.foxbot.FoxBot;
-import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.ArrayCommand;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
@@ -26,7 +26,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class CommandAddUser extends Command
+public class CommandAddUser extends ArrayCommand
 {
     private final FoxBot foxbot;
 
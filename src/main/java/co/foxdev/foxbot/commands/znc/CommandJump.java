@@ -18,11 +18,11 @@
 package co.foxdev.foxbot.commands.znc;
 
 import co.foxdev.foxbot.FoxBot;
-import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.ArrayCommand;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-public class CommandJump extends Command
+public class CommandJump extends ArrayCommand
 {
     private final FoxBot foxbot;
 
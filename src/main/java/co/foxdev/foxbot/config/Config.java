@@ -69,6 +69,8 @@ public class Config
     private String nickservPassword;
     private boolean usersMustBeVerified;
     private boolean matchUsersByHostmask;
+    private long verificationTtl;
+    private boolean useAccountTracking;
 
     // ----------------
     // Database section
@@ -80,6 +82,9 @@ public class Config
     private String databaseName;
     private String databaseUser;
     private String databasePassword;
+    private int auditBatchSize;
+    private long auditFlushInterval;
+    private int auditQueueSize;
 
     // -----------------------
     // User-punishment section
@@ -95,13 +100,13 @@ public class Config
 
     private boolean debug;
     private char commandPrefix;
+    private boolean matchCommandPrefixes;
+    private boolean suggestCommands;
     private boolean autoJoinOnInvite;
     private boolean autoRejoinOnKick;
     private long autoRejoinDelay;
-    private long kickDelay;
     private boolean autoNickChange;
     private boolean autoReconnect;
-    private long messageDelay;
     private boolean mungeUsernames;
     private List<String> ignoredChannels;
     private List<String> greetingChannels;
@@ -115,6 +120,65 @@ public class Config
     private String soundURL;
     private String soundExtension;
 
+    // ------------------------
+    // Command executor section
+    // ------------------------
+
+    private String executorMode;
+    private int executorThreads;
+    private int executorQueueSize;
+    private int executorMaxPerCommand;
+    private String executorRejectionPolicy;
+
+    // -----------------------
+    // Custom commands section
+    // -----------------------
+
+    private String customCommandStorage;
+    private int customCommandCacheSize;
+
+    // ----------------
+    // Outbound section
+    // ----------------
+
+    private int outboundMaxPerTarget;
+
+    // ---------------
+    // Metrics section
+    // ---------------
+
+    private boolean metricsHttpEnabled;
+    private String metricsHttpAddress;
+    private int metricsHttpPort;
+
+    // -------------------
+    // Rate limits section
+    // -------------------
+
+    private boolean rateLimitsEnabled;
+
+    // ---------------------
+    // Flood control section
+    // ---------------------
+
+    private int floodBurst;
+    private double floodRate;
+    private double floodMinRate;
+    private int floodBytesPerToken;
+
+    // --------------------
+    // URL previews section
+    // --------------------
+
+    private int urlPreviewThreads;
+    private int urlPreviewQueueSize;
+    private int urlPreviewMaxPerHost;
+    private int urlPreviewMaxPerMessage;
+    private int urlPreviewCacheSize;
+    private int urlPreviewCacheTtl;
+    private int urlPreviewNegativeTtl;
+    private boolean urlPreviewPersistCache;
+
     public Config(FoxBot foxbot)
     {
         this.foxbot = foxbot;
@@ -174,6 +238,8 @@ public class Config
         nickservPassword = botConfig.getString("auth.nickserv-password");
         usersMustBeVerified = botConfig.getBoolean("auth.users-must-be-verified");
         matchUsersByHostmask = botConfig.getBoolean("auth.match-users-by-hostmask");
+        verificationTtl = botConfig.getLong("auth.verification-ttl", 600);
+        useAccountTracking = botConfig.getBoolean("auth.use-account-tracking", true);
 
         // ----------------
         // Database section
@@ -185,6 +251,9 @@ public class Config
         databaseName = botConfig.getString("database.name");
         databaseUser = botConfig.getString("database.username");
         databasePassword = botConfig.getString("database.password");
+        auditBatchSize = botConfig.getInt("database.audit-batch-size", 50);
+        auditFlushInterval = botConfig.getLong("database.audit-flush-interval", 1000);
+        auditQueueSize = botConfig.getInt("database.audit-queue-size", 10000);
 
         // -----------------------
         // User-punishment section
@@ -200,13 +269,13 @@ public class Config
 
         debug = botConfig.getBoolean("misc.debug");
         commandPrefix = botConfig.getString("misc.command-prefix").toCharArray()[0];
+        matchCommandPrefixes = botConfig.getBoolean("misc.match-command-prefixes", false);
+        suggestCommands = botConfig.getBoolean("misc.suggest-commands", false);
         autoJoinOnInvite = botConfig.getBoolean("misc.auto-join-on-invite");
         autoRejoinOnKick = botConfig.getBoolean("misc.auto-rejoin-on-kick");
         autoRejoinDelay = botConfig.getLong("misc.auto-rejoin-delay");
-        kickDelay = botConfig.getLong("misc.kick-delay");
         autoNickChange = botConfig.getBoolean("misc.auto-nick-change");
         autoReconnect = botConfig.getBoolean("misc.auto-reconnect");
-        messageDelay = botConfig.getLong("misc.message-delay");
         mungeUsernames = botConfig.getBoolean("misc.munge-usernames");
         ignoredChannels = botConfig.getStringList("misc.ignored-channels");
         greetingChannels = botConfig.getStringList("misc.channels-to-greet");
@@ -220,12 +289,73 @@ public class Config
         soundURL = botConfig.getString("sounds.sound-url");
         soundExtension = botConfig.getString("sounds.sound-extension");
 
+        // ------------------------
+        // Command executor section
+        // ------------------------
+
+        executorMode = botConfig.getString("command-executor.mode", "pool");
+        executorThreads = botConfig.getInt("command-executor.threads", 4);
+        executorQueueSize = botConfig.getInt("command-executor.queue-size", 64);
+        executorMaxPerCommand = botConfig.getInt("command-executor.max-per-command", 2);
+        executorRejectionPolicy = botConfig.getString("command-executor.rejection-policy", "notify");
+
+        // -----------------------
+        // Custom commands section
+        // -----------------------
+
+        customCommandStorage = botConfig.getString("custom-commands.storage", "directory");
+        customCommandCacheSize = botConfig.getInt("custom-commands.cache-size", 1000);
+
+        // ----------------
+        // Outbound section
+        // ----------------
+
+        outboundMaxPerTarget = botConfig.getInt("outbound.max-per-target", 100);
+
+        // ---------------
+        // Metrics section
+        // ---------------
+
+        metricsHttpEnabled = botConfig.getBoolean("metrics.http-enabled", false);
+        metricsHttpAddress = botConfig.getString("metrics.http-address", "127.0.0.1");
+        metricsHttpPort = botConfig.getInt("metrics.http-port", 9404);
+
+        // -------------------
+        // Rate limits section
+        // -------------------
+
+        rateLimitsEnabled = botConfig.getBoolean("rate-limits.enabled", true);
+
+        // ---------------------
+        // Flood control section
+        // ---------------------
+
+        floodBurst = botConfig.getInt("flood-control.burst", 10);
+        floodRate = botConfig.getDouble("flood-control.rate", 2);
+        floodMinRate = botConfig.getDouble("flood-control.min-rate", 0.5);
+        floodBytesPerToken = botConfig.getInt("flood-control.bytes-per-token", 256);
+
+        // --------------------
+        // URL previews section
+        // --------------------
+
+        urlPreviewThreads = botConfig.getInt("url-previews.threads", 2);
+        urlPreviewQueueSize = botConfig.getInt("url-previews.queue-size", 32);
+        urlPreviewMaxPerHost = botConfig.getInt("url-previews.max-per-host", 2);
+        urlPreviewMaxPerMessage = botConfig.getInt("url-previews.max-per-message", 3);
+        urlPreviewCacheSize = botConfig.getInt("url-previews.cache-size", 500);
+        urlPreviewCacheTtl = botConfig.getInt("url-previews.cache-ttl", 3600);
+        urlPreviewNegativeTtl = botConfig.getInt("url-previews.negative-ttl", 300);
+        urlPreviewPersistCache = botConfig.getBoolean("url-previews.persist-cache", false);
+
     }
 
     public void reload()
     {
         loadConfig();
 	    foxbot.getZncConfig().reload();
+	    foxbot.getPermissionManager().reload();
+	    foxbot.getCommandManager().getRateLimiter().reload();
     }
 
     // ---------
@@ -314,6 +444,16 @@ public class Config
         return matchUsersByHostmask;
     }
 
+    public long getVerificationTtl()
+    {
+        return verificationTtl;
+    }
+
+    public boolean getUseAccountTracking()
+    {
+        return useAccountTracking;
+    }
+
     // ----------------
     // Database section
     // ----------------
@@ -348,6 +488,21 @@ public class Config
         return databasePassword;
     }
 
+    public int getAuditBatchSize()
+    {
+        return auditBatchSize;
+    }
+
+    public long getAuditFlushInterval()
+    {
+        return auditFlushInterval;
+    }
+
+    public int getAuditQueueSize()
+    {
+        return auditQueueSize;
+    }
+
     // -----------------------
     // User-punishment section
     // -----------------------
@@ -381,6 +536,16 @@ public class Config
         return commandPrefix;
     }
 
+    public boolean getMatchCommandPrefixes()
+    {
+        return matchCommandPrefixes;
+    }
+
+    public boolean getSuggestCommands()
+    {
+        return suggestCommands;
+    }
+
     public boolean getAutoJoinOnInvite()
     {
         return autoJoinOnInvite;
@@ -396,11 +561,6 @@ public class Config
         return autoRejoinDelay;
     }
 
-    public long getKickDelay()
-    {
-        return kickDelay;
-    }
-
     public boolean getAutoNickChange()
     {
         return autoNickChange;
@@ -411,11 +571,6 @@ public class Config
         return autoReconnect;
     }
 
-    public Long getMessageDelay()
-    {
-        return messageDelay;
-    }
-
     public boolean getMungeUsernames()
     {
         return mungeUsernames;
@@ -448,6 +603,154 @@ public class Config
     public String getSoundURL() { return soundURL; }
     public String getSoundExtension() { return soundExtension; }
 
+    // ------------------------
+    // Command executor section
+    // ------------------------
+
+    public String getExecutorMode()
+    {
+        return executorMode;
+    }
+
+    public int getExecutorThreads()
+    {
+        return executorThreads;
+    }
+
+    public int getExecutorQueueSize()
+    {
+        return executorQueueSize;
+    }
+
+    public int getExecutorMaxPerCommand()
+    {
+        return executorMaxPerCommand;
+    }
+
+    public String getExecutorRejectionPolicy()
+    {
+        return executorRejectionPolicy;
+    }
+
+    // -----------------------
+    // Custom commands section
+    // -----------------------
+
+    public String getCustomCommandStorage()
+    {
+        return customCommandStorage;
+    }
+
+    public int getCustomCommandCacheSize()
+    {
+        return customCommandCacheSize;
+    }
+
+    // ----------------
+    // Outbound section
+    // ----------------
+
+    public int getOutboundMaxPerTarget()
+    {
+        return outboundMaxPerTarget;
+    }
+
+    // ---------------
+    // Metrics section
+    // ---------------
+
+    public boolean getMetricsHttpEnabled()
+    {
+        return metricsHttpEnabled;
+    }
+
+    public String getMetricsHttpAddress()
+    {
+        return metricsHttpAddress;
+    }
+
+    public int getMetricsHttpPort()
+    {
+        return metricsHttpPort;
+    }
+
+    // -------------------
+    // Rate limits section
+    // -------------------
+
+    public boolean getRateLimitsEnabled()
+    {
+        return rateLimitsEnabled;
+    }
+
+    // ---------------------
+    // Flood control section
+    // ---------------------
+
+    public int getFloodBurst()
+    {
+        return floodBurst;
+    }
+
+    public double getFloodRate()
+    {
+        return floodRate;
+    }
+
+    public double getFloodMinRate()
+    {
+        return floodMinRate;
+    }
+
+    public int getFloodBytesPerToken()
+    {
+        return floodBytesPerToken;
+    }
+
+    // --------------------
+    // URL previews section
+    // --------------------
+
+    public int getUrlPreviewThreads()
+    {
+        return urlPreviewThreads;
+    }
+
+    public int getUrlPreviewQueueSize()
+    {
+        return urlPreviewQueueSize;
+    }
+
+    public int getUrlPreviewMaxPerHost()
+    {
+        return urlPreviewMaxPerHost;
+    }
+
+    public int getUrlPreviewMaxPerMessage()
+    {
+        return urlPreviewMaxPerMessage;
+    }
+
+    public int getUrlPreviewCacheSize()
+    {
+        return urlPreviewCacheSize;
+    }
+
+    public int getUrlPreviewCacheTtl()
+    {
+        return urlPreviewCacheTtl;
+    }
+
+    public int getUrlPreviewNegativeTtl()
+    {
+        return urlPreviewNegativeTtl;
+    }
+
+    public boolean getUrlPreviewPersistCache()
+    {
+        return urlPreviewPersistCache;
+    }
+
     // ------------
     // File objects
     // ------------
@@ -0,0 +1,43 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.customcommands;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where custom commands are kept. Channels are named without their leading #, the same way the
+ * data/custcmds folders are.
+ */
+public interface CustomCommandStorage
+{
+	// Every command that exists, by channel.
+	public Map<String, Set<String>> listCommands();
+
+	// Returns null if the command doesn't exist.
+	public String read(String channel, String command);
+
+	public void write(String channel, String command, String text);
+
+	public boolean delete(String channel, String command);
+
+	// Lets the storage tell the store about changes made outside the bot.
+	public void watch(CustomCommandStore store);
+
+	public String getName();
+}
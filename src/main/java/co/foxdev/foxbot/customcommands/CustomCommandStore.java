@@ -0,0 +1,281 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.customcommands;
+
+import co.foxdev.foxbot.FoxBot;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Level;
+
+/**
+ * Keeps track of which custom commands exist so misses never touch the storage, and caches the text
+ * of recently used ones. Where the commands live is picked with custom-commands.storage.
+ */
+public class CustomCommandStore
+{
+	private final FoxBot foxbot;
+
+	private final CustomCommandStorage storage;
+	// Channel name without the # to the commands that exist for it, which are looked up ignoring case
+	private final ConcurrentMap<String, NavigableSet<String>> commands = new ConcurrentHashMap<>();
+	private final Map<String, String> cache;
+
+	public CustomCommandStore(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		final int cacheSize = Math.max(1, foxbot.getConfig().getCustomCommandCacheSize());
+
+		cache = new LinkedHashMap<String, String>(16, 0.75F, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+			{
+				return size() > cacheSize;
+			}
+		};
+
+		switch (foxbot.getConfig().getCustomCommandStorage().toLowerCase())
+		{
+			case "database":
+				storage = new DatabaseCustomCommandStorage(foxbot);
+				break;
+			case "directory":
+				storage = new DirectoryCustomCommandStorage(foxbot);
+				break;
+			default:
+				foxbot.log(Level.WARNING, String.format("Unknown custom command storage '%s', using directory", foxbot.getConfig().getCustomCommandStorage()));
+				storage = new DirectoryCustomCommandStorage(foxbot);
+		}
+	}
+
+	// Needs the database to be connected first if that's where commands are stored.
+	public void load()
+	{
+		scan();
+		storage.watch(this);
+	}
+
+	private void scan()
+	{
+		int count = 0;
+
+		for (Map.Entry<String, Set<String>> channel : storage.listCommands().entrySet())
+		{
+			Set<String> names = getChannel(channel.getKey());
+
+			names.addAll(channel.getValue());
+			count += names.size();
+		}
+
+		foxbot.log(String.format("Loaded %s custom commands for %s channels from %s storage", count, commands.size(), storage.getName()));
+	}
+
+	private NavigableSet<String> getChannel(String channel)
+	{
+		NavigableSet<String> names = commands.get(channel);
+
+		if (names == null)
+		{
+			NavigableSet<String> created = new ConcurrentSkipListSet<>(String.CASE_INSENSITIVE_ORDER);
+
+			names = commands.putIfAbsent(channel, created);
+
+			if (names == null)
+			{
+				names = created;
+			}
+		}
+		return names;
+	}
+
+	// Returns null if the channel has no such command. The name can be in any case.
+	public String get(String channel, String command)
+	{
+		channel = channel.substring(1);
+
+		NavigableSet<String> names = commands.get(channel);
+
+		if (names == null)
+		{
+			return null;
+		}
+
+		// The command as it's stored, so the cache and storage see one name however it was typed
+		String stored = names.ceiling(command);
+
+		if (stored == null || !stored.equalsIgnoreCase(command))
+		{
+			return null;
+		}
+		command = stored;
+
+		String key = key(channel, command);
+
+		synchronized (cache)
+		{
+			String text = cache.get(key);
+
+			if (text != null)
+			{
+				return text;
+			}
+		}
+
+		String text = storage.read(channel, command);
+
+		if (text == null)
+		{
+			// Deleted behind our back
+			commandRemoved(channel, command);
+			return null;
+		}
+
+		synchronized (cache)
+		{
+			cache.put(key, text);
+		}
+		return text;
+	}
+
+	// Returns false if the command was deleted rather than set.
+	public boolean set(String channel, String command, String text)
+	{
+		String name = channel.substring(1);
+
+		if (text.isEmpty() || text.equalsIgnoreCase("delete"))
+		{
+			commandRemoved(name, command);
+
+			if (storage.delete(name, command))
+			{
+				foxbot.log(String.format("Command '%s' deleted for %s!", command, channel));
+			}
+			return false;
+		}
+
+		storage.write(name, command, text);
+		getChannel(name).add(command);
+
+		synchronized (cache)
+		{
+			cache.put(key(name, command), text);
+		}
+		foxbot.log(String.format("Command '%s' set for %s in %s storage", command, channel, storage.getName()));
+		return true;
+	}
+
+	/**
+	 * Copies every command from the old data/custcmds layout into the storage in use. Commands that
+	 * already exist are overwritten. Returns the number of commands copied.
+	 */
+	public int migrate()
+	{
+		CustomCommandStorage source = new DirectoryCustomCommandStorage(foxbot);
+		int count = 0;
+
+		if (source.getName().equals(storage.getName()))
+		{
+			return 0;
+		}
+
+		for (Map.Entry<String, Set<String>> channel : source.listCommands().entrySet())
+		{
+			for (String command : channel.getValue())
+			{
+				String text = source.read(channel.getKey(), command);
+
+				if (text == null || text.isEmpty())
+				{
+					continue;
+				}
+
+				storage.write(channel.getKey(), command, text);
+				getChannel(channel.getKey()).add(command);
+				invalidate(channel.getKey(), command);
+				count++;
+			}
+		}
+
+		foxbot.log(String.format("Migrated %s custom commands from data/custcmds to %s storage", count, storage.getName()));
+		return count;
+	}
+
+	public CustomCommandStorage getStorage()
+	{
+		return storage;
+	}
+
+	// Called by the storage when something changes outside the bot.
+
+	void commandChanged(String channel, String command)
+	{
+		getChannel(channel).add(command);
+		invalidate(channel, command);
+	}
+
+	void commandRemoved(String channel, String command)
+	{
+		Set<String> names = commands.get(channel);
+
+		if (names != null)
+		{
+			names.remove(command);
+		}
+		invalidate(channel, command);
+	}
+
+	void channelRemoved(String channel)
+	{
+		Set<String> names = commands.remove(channel);
+
+		if (names != null)
+		{
+			for (String command : names)
+			{
+				invalidate(channel, command);
+			}
+		}
+	}
+
+	void reload()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+		}
+		commands.clear();
+		scan();
+	}
+
+	private void invalidate(String channel, String command)
+	{
+		synchronized (cache)
+		{
+			cache.remove(key(channel, command));
+		}
+	}
+
+	private String key(String channel, String command)
+	{
+		return channel + '/' + command;
+	}
+}
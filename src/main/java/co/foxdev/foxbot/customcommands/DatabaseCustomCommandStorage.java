@@ -0,0 +1,69 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.customcommands;
+
+import co.foxdev.foxbot.FoxBot;
+
+import java.util.Map;
+import java.util.Set;
+
+public class DatabaseCustomCommandStorage implements CustomCommandStorage
+{
+	private final FoxBot foxbot;
+
+	public DatabaseCustomCommandStorage(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	@Override
+	public Map<String, Set<String>> listCommands()
+	{
+		return foxbot.getDatabase().getCustomCommands();
+	}
+
+	@Override
+	public String read(String channel, String command)
+	{
+		return foxbot.getDatabase().getCustomCommand(channel, command);
+	}
+
+	@Override
+	public void write(String channel, String command, String text)
+	{
+		foxbot.getDatabase().setCustomCommand(channel, command, text);
+	}
+
+	@Override
+	public boolean delete(String channel, String command)
+	{
+		return foxbot.getDatabase().deleteCustomCommand(channel, command);
+	}
+
+	@Override
+	public void watch(CustomCommandStore store)
+	{
+		// Everything goes through the bot, nothing to watch
+	}
+
+	@Override
+	public String getName()
+	{
+		return "database";
+	}
+}
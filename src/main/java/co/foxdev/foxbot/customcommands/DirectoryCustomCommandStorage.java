@@ -0,0 +1,275 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.customcommands;
+
+import co.foxdev.foxbot.FoxBot;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * The original layout, one file per command in data/custcmds/channel/command. The directory is
+ * watched, so commands edited by hand are picked up too.
+ */
+public class DirectoryCustomCommandStorage implements CustomCommandStorage, Runnable
+{
+	private final FoxBot foxbot;
+
+	private final File root = new File("data/custcmds");
+	private WatchService watcher;
+	private CustomCommandStore store;
+
+	public DirectoryCustomCommandStorage(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	@Override
+	public Map<String, Set<String>> listCommands()
+	{
+		Map<String, Set<String>> commands = new HashMap<>();
+		File[] channels = root.listFiles();
+
+		if (channels != null)
+		{
+			for (File channel : channels)
+			{
+				if (channel.isDirectory())
+				{
+					commands.put(channel.getName(), listChannel(channel.getName()));
+				}
+			}
+		}
+		return commands;
+	}
+
+	private Set<String> listChannel(String channel)
+	{
+		Set<String> names = new HashSet<>();
+		File[] files = new File(root, channel).listFiles();
+
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				if (file.isFile())
+				{
+					names.add(file.getName());
+				}
+			}
+		}
+		return names;
+	}
+
+	@Override
+	public String read(String channel, String command)
+	{
+		StringBuilder message = new StringBuilder();
+
+		try
+		{
+			BufferedReader reader = new BufferedReader(new FileReader(new File(new File(root, channel), command)));
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				message.append(line);
+			}
+			reader.close();
+		}
+		catch (FileNotFoundException ex)
+		{
+			// Deleted behind our back
+			return null;
+		}
+		catch (IOException ex)
+		{
+			foxbot.log(ex);
+			return null;
+		}
+		return message.toString();
+	}
+
+	@Override
+	public void write(String channel, String command, String text)
+	{
+		File path = new File(root, channel);
+
+		try
+		{
+			if (!path.exists() && !path.mkdirs())
+			{
+				foxbot.log(Level.WARNING, "Error while creating custom command folders!");
+			}
+
+			File file = new File(path, command);
+
+			if (file.exists() && !file.delete())
+			{
+				foxbot.log(Level.WARNING, "Error while deleting old command!");
+			}
+
+			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+
+			writer.write(text);
+			writer.close();
+		}
+		catch (IOException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	@Override
+	public boolean delete(String channel, String command)
+	{
+		return new File(new File(root, channel), command).delete();
+	}
+
+	@Override
+	public void watch(CustomCommandStore store)
+	{
+		this.store = store;
+
+		try
+		{
+			watcher = FileSystems.getDefault().newWatchService();
+
+			if (!root.exists() && !root.mkdirs())
+			{
+				foxbot.log(Level.WARNING, "Error while creating custom command folders!");
+			}
+			root.toPath().register(watcher, ENTRY_CREATE, ENTRY_DELETE);
+
+			File[] channels = root.listFiles();
+
+			if (channels != null)
+			{
+				for (File channel : channels)
+				{
+					if (channel.isDirectory())
+					{
+						channel.toPath().register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+					}
+				}
+			}
+
+			Thread thread = new Thread(this, "FoxBot-CustomCommandWatcher");
+
+			thread.setDaemon(true);
+			thread.start();
+		}
+		catch (IOException ex)
+		{
+			foxbot.log(Level.WARNING, "Could not watch data/custcmds for changes, commands edited outside the bot will need a restart");
+			foxbot.log(ex);
+		}
+	}
+
+	@Override
+	public String getName()
+	{
+		return "directory";
+	}
+
+	@Override
+	public void run()
+	{
+		while (true)
+		{
+			WatchKey watchKey;
+
+			try
+			{
+				watchKey = watcher.take();
+			}
+			catch (InterruptedException | ClosedWatchServiceException ex)
+			{
+				return;
+			}
+
+			Path dir = (Path) watchKey.watchable();
+			boolean isRoot = dir.equals(root.toPath());
+
+			for (WatchEvent<?> event : watchKey.pollEvents())
+			{
+				if (event.kind() == OVERFLOW)
+				{
+					// Lost track of what changed, start again
+					store.reload();
+					continue;
+				}
+
+				String name = event.context().toString();
+
+				if (isRoot)
+				{
+					if (event.kind() == ENTRY_CREATE && dir.resolve(name).toFile().isDirectory())
+					{
+						watchChannel(name);
+					}
+					else if (event.kind() == ENTRY_DELETE)
+					{
+						store.channelRemoved(name);
+					}
+					continue;
+				}
+
+				String channel = dir.getFileName().toString();
+
+				if (event.kind() == ENTRY_DELETE)
+				{
+					store.commandRemoved(channel, name);
+				}
+				else
+				{
+					store.commandChanged(channel, name);
+				}
+			}
+
+			if (!watchKey.reset() && !isRoot)
+			{
+				store.channelRemoved(dir.getFileName().toString());
+			}
+		}
+	}
+
+	private void watchChannel(String channel)
+	{
+		try
+		{
+			new File(root, channel).toPath().register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+
+			for (String command : listChannel(channel))
+			{
+				store.commandChanged(channel, command);
+			}
+		}
+		catch (IOException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+}
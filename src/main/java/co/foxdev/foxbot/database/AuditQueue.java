@@ -0,0 +1,345 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.database;
+
+import co.foxdev.foxbot.FoxBot;
+import com.jolbox.bonecp.BoneCP;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Collects kick and ban records and writes them in batches from a background thread,
+ * so moderation during join floods doesn't wait on the database. A batch that fails is
+ * retried a few times, backing off in between, before its records are counted as dropped.
+ */
+public class AuditQueue implements Runnable
+{
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long MAX_RETRY_DELAY = TimeUnit.SECONDS.toMillis(30);
+
+	private final FoxBot foxbot;
+	private final BoneCP connectionPool;
+
+	private final BlockingQueue<AuditRecord> queue;
+	private final int batchSize;
+	private final long flushInterval;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	private final AtomicLong flushedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private volatile long lastFlushTime = 0;
+	private volatile long maxFlushTime = 0;
+
+	public AuditQueue(FoxBot foxbot, BoneCP connectionPool)
+	{
+		this.foxbot = foxbot;
+		this.connectionPool = connectionPool;
+
+		queue = new ArrayBlockingQueue<>(Math.max(1, foxbot.getConfig().getAuditQueueSize()));
+		batchSize = Math.max(1, foxbot.getConfig().getAuditBatchSize());
+		flushInterval = Math.max(1, foxbot.getConfig().getAuditFlushInterval());
+		thread = new Thread(this, "FoxBot-AuditQueue");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void addKick(Channel channel, User target, String reason, User kicker, long time)
+	{
+		add(new AuditRecord(AuditRecord.KICK, channel.getName(), target.getNick(), target.getHostmask(), reason, kicker.getNick(), time));
+	}
+
+	public void addBan(Channel channel, User target, String reason, User banner, long time)
+	{
+		add(new AuditRecord(AuditRecord.BAN, channel.getName(), target.getNick(), target.getHostmask(), reason, banner.getNick(), time));
+	}
+
+	// Never waits for room, this is called on the IRC event thread.
+	private void add(AuditRecord record)
+	{
+		if (running && queue.offer(record))
+		{
+			return;
+		}
+
+		droppedCount.incrementAndGet();
+		foxbot.log(Level.SEVERE, String.format("Audit queue is full, dropped %s record for %s in %s", record.table, record.target, record.channel));
+	}
+
+	@Override
+	public void run()
+	{
+		List<AuditRecord> batch = new ArrayList<>(batchSize);
+		long deadline = 0;
+		int failures = 0;
+
+		while (running)
+		{
+			try
+			{
+				if (batch.isEmpty())
+				{
+					AuditRecord record = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+
+					if (record == null)
+					{
+						continue;
+					}
+
+					batch.add(record);
+					deadline = System.currentTimeMillis() + flushInterval;
+				}
+
+				long wait = deadline - System.currentTimeMillis();
+				AuditRecord record = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+
+				if (record != null)
+				{
+					batch.add(record);
+				}
+
+				queue.drainTo(batch, batchSize - batch.size());
+
+				if (batch.size() >= batchSize || System.currentTimeMillis() >= deadline)
+				{
+					if (flush(batch))
+					{
+						failures = 0;
+						batch.clear();
+					}
+					else if (++failures >= MAX_ATTEMPTS)
+					{
+						drop(batch);
+						failures = 0;
+						batch.clear();
+					}
+					else
+					{
+						// New records wait in the queue while the database recovers
+						Thread.sleep(Math.min(flushInterval << failures, MAX_RETRY_DELAY));
+					}
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				break;
+			}
+		}
+
+		// Whatever is still in the queue is written by shutdown()
+		if (!batch.isEmpty() && !flush(batch))
+		{
+			drop(batch);
+		}
+	}
+
+	// Returns false if the batch couldn't be written and nothing in it was committed.
+	private boolean flush(List<AuditRecord> batch)
+	{
+		long start = System.nanoTime();
+		Connection connection = null;
+		PreparedStatement kicks = null;
+		PreparedStatement bans = null;
+		boolean written = false;
+
+		try
+		{
+			connection = connectionPool.getConnection();
+			connection.setAutoCommit(false);
+
+			kicks = connection.prepareStatement("INSERT INTO kicks (channel, target, hostmask, reason, kicker, kick_time) VALUES (?, ?, ?, ?, ?, ?);");
+			bans = connection.prepareStatement("INSERT INTO bans (channel, target, hostmask, reason, banner, ban_time) VALUES (?, ?, ?, ?, ?, ?);");
+
+			for (AuditRecord record : batch)
+			{
+				PreparedStatement statement = record.table.equals(AuditRecord.KICK) ? kicks : bans;
+
+				statement.setString(1, record.channel);
+				statement.setString(2, record.target);
+				statement.setString(3, record.hostmask);
+				statement.setString(4, record.reason);
+				statement.setString(5, record.actor);
+				statement.setLong(6, record.time);
+				statement.addBatch();
+			}
+
+			kicks.executeBatch();
+			bans.executeBatch();
+			connection.commit();
+			flushedCount.addAndGet(batch.size());
+			written = true;
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(Level.SEVERE, String.format("Could not write %s audit records", batch.size()));
+			foxbot.log(ex);
+			rollback(connection);
+		}
+		finally
+		{
+			close(kicks);
+			close(bans);
+			close(connection);
+		}
+
+		lastFlushTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		maxFlushTime = Math.max(maxFlushTime, lastFlushTime);
+		foxbot.debug(String.format("Flushed %s audit records in %sms", batch.size(), lastFlushTime));
+		return written;
+	}
+
+	private void drop(List<AuditRecord> batch)
+	{
+		droppedCount.addAndGet(batch.size());
+		foxbot.log(Level.SEVERE, String.format("Gave up writing %s audit records", batch.size()));
+	}
+
+	private void rollback(Connection connection)
+	{
+		if (connection == null)
+		{
+			return;
+		}
+
+		try
+		{
+			connection.rollback();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	private void close(Statement statement)
+	{
+		if (statement == null)
+		{
+			return;
+		}
+
+		try
+		{
+			statement.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	private void close(Connection connection)
+	{
+		if (connection == null)
+		{
+			return;
+		}
+
+		try
+		{
+			connection.setAutoCommit(true);
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	// Stops the background thread and writes everything that is still queued.
+	public void shutdown()
+	{
+		running = false;
+		thread.interrupt();
+
+		try
+		{
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		List<AuditRecord> remaining = new ArrayList<>();
+
+		queue.drainTo(remaining);
+
+		if (!remaining.isEmpty() && !flush(remaining))
+		{
+			drop(remaining);
+		}
+	}
+
+	public int getQueueDepth()
+	{
+		return queue.size();
+	}
+
+	public long getFlushedCount()
+	{
+		return flushedCount.get();
+	}
+
+	public long getDroppedCount()
+	{
+		return droppedCount.get();
+	}
+
+	public long getLastFlushTime()
+	{
+		return lastFlushTime;
+	}
+
+	public long getMaxFlushTime()
+	{
+		return maxFlushTime;
+	}
+
+	private static class AuditRecord
+	{
+		private static final String KICK = "kick";
+		private static final String BAN = "ban";
+
+		private final String table;
+		private final String channel;
+		private final String target;
+		private final String hostmask;
+		private final String reason;
+		private final String actor;
+		private final long time;
+
+		private AuditRecord(String table, String channel, String target, String hostmask, String reason, String actor, long time)
+		{
+			this.table = table;
+			this.channel = channel;
+			this.target = target;
+			this.hostmask = hostmask;
+			this.reason = reason;
+			this.actor = actor;
+			this.time = time;
+		}
+	}
+}
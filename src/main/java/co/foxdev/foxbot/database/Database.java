@@ -17,10 +17,13 @@
 
 package co.foxdev.foxbot.database;
 
+import co.foxdev.foxbot.urlpreview.CachedUrlPreview;
 import org.pircbotx.Channel;
 import org.pircbotx.User;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class Database
 {
@@ -36,5 +39,30 @@ public abstract class Database
 
 	public abstract void addKick(Channel channel, User target, String reason, User kicker, long time);
 
+	public abstract void addPendingModeChange(PendingModeChange change);
+
+	public abstract void removePendingModeChange(PendingModeChange change);
+
+	public abstract List<PendingModeChange> getPendingModeChanges();
+
+	public abstract Map<String, Set<String>> getCustomCommands();
+
+	public abstract String getCustomCommand(String channel, String command);
+
+	public abstract void setCustomCommand(String channel, String command, String text);
+
+	public abstract boolean deleteCustomCommand(String channel, String command);
+
+	public abstract void addUrlPreview(CachedUrlPreview cached);
+
+	// Also forgets previews that expired before now.
+	public abstract List<CachedUrlPreview> getUrlPreviews(long now);
+
 	public abstract void disconnect();
+
+	public abstract AuditQueue getAuditQueue();
+
+	public abstract int getLeasedConnections();
+
+	public abstract int getFreeConnections();
 }
\ No newline at end of file
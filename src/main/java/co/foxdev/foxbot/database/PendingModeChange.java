@@ -0,0 +1,86 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.database;
+
+/**
+ * A mode change the bot has promised to undo later, such as removing a ban once the unban timer runs out.
+ */
+public class PendingModeChange
+{
+	private final String channel;
+	private final String mode;
+	private final String target;
+	private final long runTime;
+
+	public PendingModeChange(String channel, String mode, String target, long runTime)
+	{
+		this.channel = channel;
+		this.mode = mode;
+		this.target = target;
+		this.runTime = runTime;
+	}
+
+	public String getChannel()
+	{
+		return channel;
+	}
+
+	public String getMode()
+	{
+		return mode;
+	}
+
+	public String getTarget()
+	{
+		return target;
+	}
+
+	public long getRunTime()
+	{
+		return runTime;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof PendingModeChange))
+		{
+			return false;
+		}
+
+		PendingModeChange other = (PendingModeChange) o;
+
+		return runTime == other.runTime && channel.equalsIgnoreCase(other.channel) && mode.equals(other.mode) && target.equals(other.target);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int result = channel.toLowerCase().hashCode();
+
+		result = 31 * result + mode.hashCode();
+		result = 31 * result + target.hashCode();
+		result = 31 * result + (int) (runTime ^ (runTime >>> 32));
+		return result;
+	}
+}
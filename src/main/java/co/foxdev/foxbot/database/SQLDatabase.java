@@ -18,6 +18,8 @@
 package co.foxdev.foxbot.database;
 
 import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.urlpreview.CachedUrlPreview;
+import co.foxdev.foxbot.urlpreview.UrlPreview;
 import co.foxdev.foxbot.utils.Utils;
 import com.jolbox.bonecp.BoneCP;
 import com.jolbox.bonecp.BoneCPConfig;
@@ -34,6 +36,8 @@ public class SQLDatabase extends Database
 
 	private Connection connection = null;
 	private BoneCP connectionPool = null;
+	private AuditQueue auditQueue = null;
+	private TellIndex tellIndex = new TellIndex();
 
 	public SQLDatabase(FoxBot foxbot)
 	{
@@ -66,8 +70,13 @@ public class SQLDatabase extends Database
 			statement.executeUpdate("CREATE TABLE IF NOT EXISTS bans (channel VARCHAR(64), target VARCHAR(32), hostmask VARCHAR(64), reason VARCHAR(1024), banner VARCHAR(32), ban_time BIGINT)");
 			statement.executeUpdate("CREATE TABLE IF NOT EXISTS kicks (channel VARCHAR(64), target VARCHAR(32), hostmask VARCHAR(64), reason VARCHAR(1024), kicker VARCHAR(32), kick_time BIGINT)");
 			statement.executeUpdate("CREATE TABLE IF NOT EXISTS mutes (channel VARCHAR(64), target VARCHAR(32), hostmask VARCHAR(64), reason VARCHAR(1024), muter VARCHAR(32), mute_time BIGINT)");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS pending_modes (channel VARCHAR(64), mode VARCHAR(16), target VARCHAR(128), run_time BIGINT)");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS custom_commands (channel VARCHAR(64), command VARCHAR(64), text VARCHAR(4096), PRIMARY KEY (channel, command))");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS url_previews (url VARCHAR(255) PRIMARY KEY, status INT, status_message VARCHAR(255), content_type VARCHAR(128), size VARCHAR(32), title VARCHAR(1024), details VARCHAR(1024), expires BIGINT)");
 			statement.close();
+			foxbot.log(String.format("Loaded %s users with unread tells", tellIndex.load(connection)));
 			connection.close();
+			auditQueue = new AuditQueue(foxbot, connectionPool);
 		}
 		catch (SQLException ex)
 		{
@@ -91,6 +100,7 @@ public class SQLDatabase extends Database
 			statement.executeUpdate();
 			statement.close();
 			connection.close();
+			tellIndex.add(receiver);
 		}
 		catch (SQLException ex)
 		{
@@ -103,6 +113,11 @@ public class SQLDatabase extends Database
 	{
 		List<String> tells = new ArrayList<>();
 
+		if (!showAll && !tellIndex.hasTells(user))
+		{
+			return tells;
+		}
+
 		try
 		{
 			connection = connectionPool.getConnection();
@@ -124,6 +139,7 @@ public class SQLDatabase extends Database
 			statement.setString(1, user);
 			statement.executeUpdate();
 			statement.close();
+			tellIndex.refresh(connection, user);
 			connection.close();
 		}
 		catch (SQLException ex)
@@ -154,18 +170,28 @@ public class SQLDatabase extends Database
 
 	@Override
 	public void addBan(Channel channel, User target, String reason, User banner, long time)
+	{
+		auditQueue.addBan(channel, target, reason, banner, time);
+	}
+
+	@Override
+	public void addKick(Channel channel, User target, String reason, User kicker, long time)
+	{
+		auditQueue.addKick(channel, target, reason, kicker, time);
+	}
+
+	@Override
+	public void addPendingModeChange(PendingModeChange change)
 	{
 		try
 		{
 			connection = connectionPool.getConnection();
-			PreparedStatement statement = connection.prepareStatement("INSERT INTO bans (channel, target, hostmask, reason, banner, ban_time) VALUES (?, ?, ?, ?, ?, ?);");
-
-			statement.setString(1, channel.getName());
-			statement.setString(2, target.getNick());
-			statement.setString(3, target.getHostmask());
-			statement.setString(4, reason);
-			statement.setString(5, banner.getNick());
-			statement.setLong(6, time);
+			PreparedStatement statement = connection.prepareStatement("INSERT INTO pending_modes (channel, mode, target, run_time) VALUES (?, ?, ?, ?);");
+
+			statement.setString(1, change.getChannel());
+			statement.setString(2, change.getMode());
+			statement.setString(3, change.getTarget());
+			statement.setLong(4, change.getRunTime());
 			statement.executeUpdate();
 			statement.close();
 			connection.close();
@@ -177,19 +203,17 @@ public class SQLDatabase extends Database
 	}
 
 	@Override
-	public void addKick(Channel channel, User target, String reason, User kicker, long time)
+	public void removePendingModeChange(PendingModeChange change)
 	{
 		try
 		{
 			connection = connectionPool.getConnection();
-			PreparedStatement statement = connection.prepareStatement("INSERT INTO kicks (channel, target, hostmask, reason, kicker, kick_time) VALUES (?, ?, ?, ?, ?, ?);");
-
-			statement.setString(1, channel.getName());
-			statement.setString(2, target.getNick());
-			statement.setString(3, target.getHostmask());
-			statement.setString(4, reason);
-			statement.setString(5, kicker.getNick());
-			statement.setLong(6, time);
+			PreparedStatement statement = connection.prepareStatement("DELETE FROM pending_modes WHERE channel = ? AND mode = ? AND target = ? AND run_time = ?");
+
+			statement.setString(1, change.getChannel());
+			statement.setString(2, change.getMode());
+			statement.setString(3, change.getTarget());
+			statement.setLong(4, change.getRunTime());
 			statement.executeUpdate();
 			statement.close();
 			connection.close();
@@ -200,9 +224,271 @@ public class SQLDatabase extends Database
 		}
 	}
 
+	@Override
+	public List<PendingModeChange> getPendingModeChanges()
+	{
+		List<PendingModeChange> changes = new ArrayList<>();
+
+		try
+		{
+			connection = connectionPool.getConnection();
+			PreparedStatement statement = connection.prepareStatement("SELECT * FROM pending_modes");
+			ResultSet rs = statement.executeQuery();
+
+			while (rs.next())
+			{
+				changes.add(new PendingModeChange(rs.getString("channel"), rs.getString("mode"), rs.getString("target"), rs.getLong("run_time")));
+			}
+
+			rs.close();
+			statement.close();
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+		return changes;
+	}
+
+	@Override
+	public Map<String, Set<String>> getCustomCommands()
+	{
+		Map<String, Set<String>> commands = new HashMap<>();
+
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+			PreparedStatement statement = connection.prepareStatement("SELECT channel, command FROM custom_commands");
+			ResultSet rs = statement.executeQuery();
+
+			while (rs.next())
+			{
+				Set<String> names = commands.get(rs.getString("channel"));
+
+				if (names == null)
+				{
+					names = new HashSet<>();
+					commands.put(rs.getString("channel"), names);
+				}
+				names.add(rs.getString("command"));
+			}
+
+			rs.close();
+			statement.close();
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+		return commands;
+	}
+
+	@Override
+	public String getCustomCommand(String channel, String command)
+	{
+		String text = null;
+
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+			PreparedStatement statement = connection.prepareStatement("SELECT text FROM custom_commands WHERE channel = ? AND command = ?");
+
+			statement.setString(1, channel);
+			statement.setString(2, command);
+
+			ResultSet rs = statement.executeQuery();
+
+			if (rs.next())
+			{
+				text = rs.getString("text");
+			}
+
+			rs.close();
+			statement.close();
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+		return text;
+	}
+
+	@Override
+	public void setCustomCommand(String channel, String command, String text)
+	{
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+
+			connection.setAutoCommit(false);
+
+			try
+			{
+				PreparedStatement delete = connection.prepareStatement("DELETE FROM custom_commands WHERE channel = ? AND command = ?");
+
+				delete.setString(1, channel);
+				delete.setString(2, command);
+				delete.executeUpdate();
+				delete.close();
+
+				PreparedStatement insert = connection.prepareStatement("INSERT INTO custom_commands (channel, command, text) VALUES (?, ?, ?);");
+
+				insert.setString(1, channel);
+				insert.setString(2, command);
+				insert.setString(3, text);
+				insert.executeUpdate();
+				insert.close();
+				connection.commit();
+			}
+			catch (SQLException ex)
+			{
+				connection.rollback();
+				throw ex;
+			}
+			finally
+			{
+				connection.setAutoCommit(true);
+				connection.close();
+			}
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	@Override
+	public boolean deleteCustomCommand(String channel, String command)
+	{
+		int deleted = 0;
+
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+			PreparedStatement statement = connection.prepareStatement("DELETE FROM custom_commands WHERE channel = ? AND command = ?");
+
+			statement.setString(1, channel);
+			statement.setString(2, command);
+			deleted = statement.executeUpdate();
+			statement.close();
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+		return deleted > 0;
+	}
+
+	@Override
+	public void addUrlPreview(CachedUrlPreview cached)
+	{
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+
+			connection.setAutoCommit(false);
+
+			try
+			{
+				PreparedStatement delete = connection.prepareStatement("DELETE FROM url_previews WHERE url = ?");
+
+				delete.setString(1, cached.getUrl());
+				delete.executeUpdate();
+				delete.close();
+
+				PreparedStatement insert = connection.prepareStatement("INSERT INTO url_previews (url, status, status_message, content_type, size, title, details, expires) VALUES (?, ?, ?, ?, ?, ?, ?, ?);");
+				UrlPreview preview = cached.getPreview();
+
+				insert.setString(1, cached.getUrl());
+				insert.setInt(2, preview.getStatus());
+				insert.setString(3, preview.getStatusMessage());
+				insert.setString(4, preview.getContentType());
+				insert.setString(5, preview.getSize());
+				insert.setString(6, preview.getTitle());
+				insert.setString(7, preview.getDetails());
+				insert.setLong(8, cached.getExpires());
+				insert.executeUpdate();
+				insert.close();
+				connection.commit();
+			}
+			catch (SQLException ex)
+			{
+				connection.rollback();
+				throw ex;
+			}
+			finally
+			{
+				connection.setAutoCommit(true);
+				connection.close();
+			}
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	@Override
+	public List<CachedUrlPreview> getUrlPreviews(long now)
+	{
+		List<CachedUrlPreview> previews = new ArrayList<>();
+
+		try
+		{
+			Connection connection = connectionPool.getConnection();
+			PreparedStatement delete = connection.prepareStatement("DELETE FROM url_previews WHERE expires <= ?");
+
+			delete.setLong(1, now);
+			delete.executeUpdate();
+			delete.close();
+
+			PreparedStatement statement = connection.prepareStatement("SELECT * FROM url_previews ORDER BY expires");
+			ResultSet rs = statement.executeQuery();
+
+			while (rs.next())
+			{
+				UrlPreview preview = new UrlPreview(rs.getInt("status"), rs.getString("status_message"), rs.getString("content_type"), rs.getString("size"), rs.getString("title"), rs.getString("details"));
+
+				previews.add(new CachedUrlPreview(rs.getString("url"), preview, rs.getLong("expires")));
+			}
+
+			rs.close();
+			statement.close();
+			connection.close();
+		}
+		catch (SQLException ex)
+		{
+			foxbot.log(ex);
+		}
+		return previews;
+	}
+
 	@Override
 	public void disconnect()
 	{
+		auditQueue.shutdown();
 		connectionPool.shutdown();
 	}
+
+	@Override
+	public AuditQueue getAuditQueue()
+	{
+		return auditQueue;
+	}
+
+	@Override
+	public int getLeasedConnections()
+	{
+		return connectionPool.getTotalLeased();
+	}
+
+	@Override
+	public int getFreeConnections()
+	{
+		return connectionPool.getTotalFree();
+	}
 }
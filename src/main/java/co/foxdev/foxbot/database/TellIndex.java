@@ -0,0 +1,109 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.database;
+
+import java.sql.*;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of who has unread tells, so joins and nick changes only query the
+ * database for users that actually have something waiting.
+ */
+public class TellIndex
+{
+	private final Set<String> receivers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	// Held per nick while adding and while refreshing, so a tell added between refresh's count and remove isn't lost
+	private final Object[] locks = new Object[32];
+
+	public TellIndex()
+	{
+		for (int i = 0; i < locks.length; i++)
+		{
+			locks[i] = new Object();
+		}
+	}
+
+	public int load(Connection connection) throws SQLException
+	{
+		Statement statement = connection.createStatement();
+		ResultSet rs = statement.executeQuery("SELECT DISTINCT receiver FROM tells WHERE used = 0");
+
+		receivers.clear();
+
+		while (rs.next())
+		{
+			add(rs.getString("receiver"));
+		}
+
+		rs.close();
+		statement.close();
+		return receivers.size();
+	}
+
+	// Nicks are stored lowercase, so this may say yes for a differently cased nick but never no for one with tells.
+	public boolean hasTells(String user)
+	{
+		return receivers.contains(user.toLowerCase());
+	}
+
+	// Call after the tell has been written, so a refresh that gets the lock first can see it.
+	public void add(String user)
+	{
+		String nick = user.toLowerCase();
+
+		synchronized (lockFor(nick))
+		{
+			receivers.add(nick);
+		}
+	}
+
+	// Called after a user's tells have been marked as read, drops them if nothing else is waiting under any casing of their nick.
+	public void refresh(Connection connection, String user) throws SQLException
+	{
+		String nick = user.toLowerCase();
+
+		synchronized (lockFor(nick))
+		{
+			PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM tells WHERE LOWER(receiver) = ? AND used = 0");
+
+			statement.setString(1, nick);
+
+			ResultSet rs = statement.executeQuery();
+
+			if (rs.next() && rs.getInt(1) == 0)
+			{
+				receivers.remove(nick);
+			}
+
+			rs.close();
+			statement.close();
+		}
+	}
+
+	public int size()
+	{
+		return receivers.size();
+	}
+
+	private Object lockFor(String nick)
+	{
+		return locks[(nick.hashCode() & Integer.MAX_VALUE) % locks.length];
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.database;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.metrics.Histogram;
+import co.foxdev.foxbot.urlpreview.CachedUrlPreview;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the real database and records how long every call takes.
+ */
+public class TimedDatabase extends Database
+{
+	private final FoxBot foxbot;
+
+	private final Database database;
+	private final ConcurrentMap<String, Histogram> durations = new ConcurrentHashMap<>();
+
+	public TimedDatabase(FoxBot foxbot, Database database)
+	{
+		this.foxbot = foxbot;
+		this.database = database;
+	}
+
+	private void record(String call, long start)
+	{
+		Histogram histogram = durations.get(call);
+
+		if (histogram == null)
+		{
+			histogram = foxbot.getMetrics().histogram("foxbot_database_call_duration_milliseconds", "Time taken by database calls", "call", call);
+			durations.put(call, histogram);
+		}
+		histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	@Override
+	public void connect()
+	{
+		database.connect();
+	}
+
+	@Override
+	public void addTell(String sender, String receiver, String message)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.addTell(sender, receiver, message);
+		}
+		finally
+		{
+			record("addTell", start);
+		}
+	}
+
+	@Override
+	public List<String> getTells(String user, boolean showAll)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.getTells(user, showAll);
+		}
+		finally
+		{
+			record("getTells", start);
+		}
+	}
+
+	@Override
+	public void cleanTells(String user)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.cleanTells(user);
+		}
+		finally
+		{
+			record("cleanTells", start);
+		}
+	}
+
+	@Override
+	public void addBan(Channel channel, User target, String reason, User banner, long time)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.addBan(channel, target, reason, banner, time);
+		}
+		finally
+		{
+			record("addBan", start);
+		}
+	}
+
+	@Override
+	public void addKick(Channel channel, User target, String reason, User kicker, long time)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.addKick(channel, target, reason, kicker, time);
+		}
+		finally
+		{
+			record("addKick", start);
+		}
+	}
+
+	@Override
+	public void addPendingModeChange(PendingModeChange change)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.addPendingModeChange(change);
+		}
+		finally
+		{
+			record("addPendingModeChange", start);
+		}
+	}
+
+	@Override
+	public void removePendingModeChange(PendingModeChange change)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.removePendingModeChange(change);
+		}
+		finally
+		{
+			record("removePendingModeChange", start);
+		}
+	}
+
+	@Override
+	public List<PendingModeChange> getPendingModeChanges()
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.getPendingModeChanges();
+		}
+		finally
+		{
+			record("getPendingModeChanges", start);
+		}
+	}
+
+	@Override
+	public Map<String, Set<String>> getCustomCommands()
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.getCustomCommands();
+		}
+		finally
+		{
+			record("getCustomCommands", start);
+		}
+	}
+
+	@Override
+	public String getCustomCommand(String channel, String command)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.getCustomCommand(channel, command);
+		}
+		finally
+		{
+			record("getCustomCommand", start);
+		}
+	}
+
+	@Override
+	public void setCustomCommand(String channel, String command, String text)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.setCustomCommand(channel, command, text);
+		}
+		finally
+		{
+			record("setCustomCommand", start);
+		}
+	}
+
+	@Override
+	public boolean deleteCustomCommand(String channel, String command)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.deleteCustomCommand(channel, command);
+		}
+		finally
+		{
+			record("deleteCustomCommand", start);
+		}
+	}
+
+	@Override
+	public void addUrlPreview(CachedUrlPreview cached)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			database.addUrlPreview(cached);
+		}
+		finally
+		{
+			record("addUrlPreview", start);
+		}
+	}
+
+	@Override
+	public List<CachedUrlPreview> getUrlPreviews(long now)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return database.getUrlPreviews(now);
+		}
+		finally
+		{
+			record("getUrlPreviews", start);
+		}
+	}
+
+	@Override
+	public void disconnect()
+	{
+		database.disconnect();
+	}
+
+	@Override
+	public AuditQueue getAuditQueue()
+	{
+		return database.getAuditQueue();
+	}
+
+	@Override
+	public int getLeasedConnections()
+	{
+		return database.getLeasedConnections();
+	}
+
+	@Override
+	public int getFreeConnections()
+	{
+		return database.getFreeConnections();
+	}
+}
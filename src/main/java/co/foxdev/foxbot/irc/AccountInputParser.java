@@ -0,0 +1,164 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.permissions.AccountTracker;
+import org.pircbotx.InputParser;
+import org.pircbotx.PircBotX;
+import org.pircbotx.exception.IrcException;
+
+import java.io.IOException;
+
+/**
+ * Picks account information out of raw lines before PircBotX sees them. PircBotX 2.0 doesn't know
+ * about IRCv3 message tags, so they are stripped here too.
+ */
+public class AccountInputParser extends InputParser
+{
+	private final FoxBot foxbot;
+
+	public AccountInputParser(PircBotX bot, FoxBot foxbot)
+	{
+		super(bot);
+		this.foxbot = foxbot;
+	}
+
+	@Override
+	public void handleLine(String line) throws IOException, IrcException
+	{
+		String account = null;
+
+		if (line.startsWith("@"))
+		{
+			int end = line.indexOf(' ');
+
+			if (end == -1)
+			{
+				return;
+			}
+
+			account = getTag(line.substring(1, end), "account");
+			line = line.substring(end + 1);
+		}
+
+		if (!line.startsWith(":"))
+		{
+			super.handleLine(line);
+			return;
+		}
+
+		int sourceEnd = line.indexOf(' ');
+
+		if (sourceEnd == -1)
+		{
+			super.handleLine(line);
+			return;
+		}
+
+		String source = line.substring(1, sourceEnd);
+		String nick = source.contains("!") ? source.substring(0, source.indexOf('!')) : source;
+		String rest = line.substring(sourceEnd + 1);
+		int commandEnd = rest.indexOf(' ');
+		String command = commandEnd == -1 ? rest : rest.substring(0, commandEnd);
+		String params = commandEnd == -1 ? "" : rest.substring(commandEnd + 1);
+		AccountTracker tracker = foxbot.getPermissionManager().getAccountTracker();
+
+		if (account != null)
+		{
+			foxbot.getPermissionManager().accountChanged(nick, account);
+		}
+
+		switch (command.toUpperCase())
+		{
+			case "ACCOUNT":
+				// :nick!user@host ACCOUNT <account>, where * means they logged out
+				foxbot.getPermissionManager().accountChanged(nick, params.startsWith(":") ? params.substring(1) : params);
+				return;
+			case "JOIN":
+				// :nick!user@host JOIN #channel <account> :<realname>
+				String[] parts = params.split(" ", 3);
+
+				if (parts.length >= 2 && tracker.hasCapability(AccountTracker.EXTENDED_JOIN) && !parts[1].startsWith(":"))
+				{
+					foxbot.getPermissionManager().accountJoined(nick, parts[1]);
+				}
+				break;
+			case "CAP":
+				// :server CAP <nick> ACK :<capabilities>
+				String[] cap = params.split(" ", 3);
+
+				if (cap.length == 3 && cap[1].equalsIgnoreCase("ACK"))
+				{
+					for (String capability : (cap[2].startsWith(":") ? cap[2].substring(1) : cap[2]).split(" "))
+					{
+						if (!capability.isEmpty())
+						{
+							tracker.capabilityEnabled(capability);
+						}
+					}
+				}
+				break;
+		}
+		super.handleLine(line);
+
+		// Only once PircBotX has taken them out of the channel
+		switch (command.toUpperCase())
+		{
+			case "PART":
+				left(nick);
+				break;
+			case "KICK":
+				// :kicker!user@host KICK #channel <nick> :<reason>
+				String[] kick = params.split(" ", 3);
+
+				if (kick.length >= 2)
+				{
+					left(kick[1]);
+				}
+				break;
+		}
+	}
+
+	private void left(String nick)
+	{
+		if (nick.equalsIgnoreCase(bot.getNick()))
+		{
+			foxbot.getPermissionManager().botLeftChannel();
+		}
+		else
+		{
+			foxbot.getPermissionManager().userLeftChannel(nick);
+		}
+	}
+
+	private String getTag(String tags, String name)
+	{
+		for (String tag : tags.split(";"))
+		{
+			int equals = tag.indexOf('=');
+			String key = equals == -1 ? tag : tag.substring(0, equals);
+
+			if (key.equals(name))
+			{
+				return equals == -1 ? "" : tag.substring(equals + 1);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Joins the configured channels on connect with as few JOIN lines as possible, instead of one line
+ * per channel. Keeps track of which channels are still outstanding so we know how long it took to
+ * get into all of them, giving up on any the server hasn't answered for after a minute.
+ */
+public class ChannelJoiner
+{
+	// RFC 1459 line limit in bytes, minus the CRLF
+	private static final int MAX_LINE_LENGTH = 510;
+	private static final long JOIN_TIMEOUT = 60;
+
+	private final FoxBot foxbot;
+
+	private final Set<String> pending = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private volatile long started;
+	private volatile long lastJoinTime = -1;
+	private volatile int lastJoinCount;
+	// Bumped on every joinAll(), so a timeout from an earlier connect can't end this one
+	private final AtomicInteger attempt = new AtomicInteger();
+
+	public ChannelJoiner(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	/**
+	 * @param channels channel names, or channel:key for channels with a key
+	 */
+	public void joinAll(List<String> channels)
+	{
+		List<String> keyed = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+		List<String> unkeyed = new ArrayList<>();
+
+		pending.clear();
+
+		for (String channel : channels)
+		{
+			if (channel.contains(":"))
+			{
+				String[] parts = channel.split(":", 2);
+
+				keyed.add(parts[0]);
+				keys.add(parts[1]);
+				pending.add(parts[0].toLowerCase());
+				continue;
+			}
+			unkeyed.add(channel);
+			pending.add(channel.toLowerCase());
+		}
+
+		List<String> lines = buildLines(keyed, keys, unkeyed);
+
+		if (lines.isEmpty())
+		{
+			return;
+		}
+
+		started = System.nanoTime();
+		lastJoinCount = pending.size();
+		foxbot.log(String.format("Joining %s channels with %s JOIN lines", pending.size(), lines.size()));
+
+		for (String line : lines)
+		{
+			foxbot.getOutboundQueue().rawLine(line);
+		}
+
+		final int current = attempt.incrementAndGet();
+
+		foxbot.getScheduler().schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				timedOut(current);
+			}
+		}, JOIN_TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Keys apply to channels by position, so keyed channels go at the start of each line and
+	 * unkeyed ones after them.
+	 */
+	static List<String> buildLines(List<String> keyed, List<String> keys, List<String> unkeyed)
+	{
+		List<String> lines = new ArrayList<>();
+		StringBuilder channelList = new StringBuilder();
+		StringBuilder keyList = new StringBuilder();
+		// Servers count bytes, not chars, so these are the UTF-8 lengths of the lists
+		int channelBytes = 0;
+		int keyBytes = 0;
+
+		for (int i = 0; i < keyed.size() + unkeyed.size(); i++)
+		{
+			boolean hasKey = i < keyed.size();
+			String channel = hasKey ? keyed.get(i) : unkeyed.get(i - keyed.size());
+			String key = hasKey ? keys.get(i) : null;
+			int channelLength = channel.getBytes(StandardCharsets.UTF_8).length;
+			int keyLength = key != null ? key.getBytes(StandardCharsets.UTF_8).length : 0;
+			// "JOIN " + channels + " " + keys, with a comma before each new entry
+			int length = 5 + channelBytes + (channelBytes > 0 ? 1 : 0) + channelLength;
+
+			if (keyBytes > 0 || key != null)
+			{
+				length += 1 + keyBytes + (key != null ? (keyBytes > 0 ? 1 : 0) + keyLength : 0);
+			}
+
+			if (channelBytes > 0 && length > MAX_LINE_LENGTH)
+			{
+				lines.add(joinLine(channelList, keyList));
+				channelList.setLength(0);
+				keyList.setLength(0);
+				channelBytes = 0;
+				keyBytes = 0;
+			}
+
+			if (channelBytes > 0)
+			{
+				channelList.append(',');
+				channelBytes++;
+			}
+			channelList.append(channel);
+			channelBytes += channelLength;
+
+			if (key != null)
+			{
+				if (keyBytes > 0)
+				{
+					keyList.append(',');
+					keyBytes++;
+				}
+				keyList.append(key);
+				keyBytes += keyLength;
+			}
+		}
+
+		if (channelList.length() > 0)
+		{
+			lines.add(joinLine(channelList, keyList));
+		}
+		return lines;
+	}
+
+	private static String joinLine(StringBuilder channelList, StringBuilder keyList)
+	{
+		return keyList.length() == 0 ? "JOIN " + channelList : "JOIN " + channelList + " " + keyList;
+	}
+
+	public void joined(String channel)
+	{
+		if (pending.remove(channel.toLowerCase()) && pending.isEmpty())
+		{
+			finished();
+		}
+	}
+
+	public void failed(String channel, String reason)
+	{
+		if (pending.remove(channel.toLowerCase()))
+		{
+			foxbot.log(Level.WARNING, String.format("Could not join %s: %s", channel, reason));
+
+			if (pending.isEmpty())
+			{
+				finished();
+			}
+		}
+	}
+
+	// The original channel forwarded us to another one (470), so we won't get a JOIN for it.
+	public void forwarded(String channel, String target)
+	{
+		if (pending.remove(channel.toLowerCase()))
+		{
+			foxbot.log(String.format("%s forwarded us to %s", channel, target));
+
+			if (pending.isEmpty())
+			{
+				finished();
+			}
+		}
+	}
+
+	private void timedOut(int timedOutAttempt)
+	{
+		if (timedOutAttempt != attempt.get() || pending.isEmpty())
+		{
+			return;
+		}
+
+		foxbot.log(Level.WARNING, String.format("No reply to JOIN after %ss for %s, giving up on them", JOIN_TIMEOUT, pending));
+		pending.clear();
+		finished();
+	}
+
+	private void finished()
+	{
+		lastJoinTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		foxbot.log(String.format("Finished joining %s channels in %sms", lastJoinCount, lastJoinTime));
+	}
+
+	public int getPendingCount()
+	{
+		return pending.size();
+	}
+
+	// How long it took to get through every channel after the last connect, -1 if we're not done yet.
+	public long getLastJoinTime()
+	{
+		return pending.isEmpty() ? lastJoinTime : -1;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.config.Config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Token bucket that decides when the next line can be sent. Every line costs one token plus one per
+ * flood-control.bytes-per-token bytes, the way most IRCds charge for messages, and tokens come back
+ * at flood-control.rate per second up to flood-control.burst. An idle bot can send a full burst
+ * straight away.
+ *
+ * When the server says we're sending too fast the rate is halved, and it creeps back up to the
+ * configured rate once the server has been quiet for a while.
+ */
+public class FloodControl
+{
+	// How long without complaints from the server before we start speeding up again
+	private static final long RECOVERY_DELAY = TimeUnit.SECONDS.toNanos(30);
+
+	private final FoxBot foxbot;
+
+	private final double burst;
+	private final double maxRate;
+	private final double minRate;
+	private final int bytesPerToken;
+	private double rate;
+	private double tokens;
+	private long lastRefill = System.nanoTime();
+	private long lastThrottle;
+	private long throttleCount;
+
+	public FloodControl(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		Config config = foxbot.getConfig();
+
+		burst = Math.max(1, config.getFloodBurst());
+		maxRate = Math.max(0.1, config.getFloodRate());
+		minRate = Math.min(maxRate, Math.max(0.05, config.getFloodMinRate()));
+		bytesPerToken = Math.max(1, config.getFloodBytesPerToken());
+		rate = maxRate;
+		tokens = burst;
+		lastThrottle = lastRefill - RECOVERY_DELAY;
+	}
+
+	/**
+	 * Waits until the line can be sent without flooding, and charges for it.
+	 */
+	public void acquire(String line) throws InterruptedException
+	{
+		double cost = getCost(line);
+
+		while (true)
+		{
+			long wait;
+
+			synchronized (this)
+			{
+				refill();
+
+				// A line that costs more than the whole burst would never fit, so it just needs a full bucket
+				if (tokens >= Math.min(cost, burst))
+				{
+					tokens -= cost;
+					return;
+				}
+				wait = (long) ((Math.min(cost, burst) - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1)));
+		}
+	}
+
+	private void refill()
+	{
+		long now = System.nanoTime();
+		double elapsed = (double) (now - lastRefill) / TimeUnit.SECONDS.toNanos(1);
+
+		lastRefill = now;
+
+		if (rate < maxRate && now - lastThrottle > RECOVERY_DELAY)
+		{
+			// Back to full speed over about ten seconds of sending
+			rate = Math.min(maxRate, rate + maxRate * elapsed / 10);
+		}
+		tokens = Math.min(burst, tokens + elapsed * rate);
+	}
+
+	private double getCost(String line)
+	{
+		// UTF-8 length plus the CRLF, without encoding the line
+		int bytes = 2;
+
+		for (int i = 0; i < line.length(); i++)
+		{
+			char c = line.charAt(i);
+
+			if (c < 0x80)
+			{
+				bytes++;
+			}
+			else if (c < 0x800)
+			{
+				bytes += 2;
+			}
+			else if (Character.isHighSurrogate(c))
+			{
+				bytes += 4;
+				i++;
+			}
+			else
+			{
+				bytes += 3;
+			}
+		}
+		return 1 + (double) bytes / bytesPerToken;
+	}
+
+	/**
+	 * Called when the server tells us to slow down.
+	 */
+	public synchronized void throttled()
+	{
+		refill();
+		rate = Math.max(minRate, rate / 2);
+		tokens = Math.min(tokens, 0);
+		lastThrottle = System.nanoTime();
+		throttleCount++;
+		foxbot.log(Level.WARNING, String.format("Server says we're sending too fast, slowing down to %.2f lines per second", rate));
+	}
+
+	public synchronized double getRate()
+	{
+		return rate;
+	}
+
+	public synchronized double getTokens()
+	{
+		refill();
+		return tokens;
+	}
+
+	public synchronized long getThrottleCount()
+	{
+		return throttleCount;
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+import org.pircbotx.Configuration;
+import org.pircbotx.InputParser;
+import org.pircbotx.PircBotX;
+import org.pircbotx.output.OutputRaw;
+
+public class FoxBotFactory extends Configuration.BotFactory
+{
+	private final FoxBot foxbot;
+
+	public FoxBotFactory(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	@Override
+	public InputParser createInputParser(PircBotX bot)
+	{
+		return new AccountInputParser(bot, foxbot);
+	}
+
+	@Override
+	public OutputRaw createOutputRaw(PircBotX bot)
+	{
+		return new OutboundQueue(bot, foxbot);
+	}
+}
@@ -0,0 +1,465 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+import org.pircbotx.PircBotX;
+import org.pircbotx.output.OutputRaw;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Replaces PircBotX's single outgoing queue. Every line is queued by the channel or user it is for,
+ * and targets take turns, so a long burst of output to one target can't hold up replies anywhere
+ * else. Kicks and modes are sent before everything else, and chat is sent last. JOIN and PART are
+ * queued with the chat for their channel, so a message sent between them still goes out in between.
+ *
+ * Callers no longer wait for their line to be sent, a single thread sends everything as fast as
+ * FloodControl allows.
+ */
+public class OutboundQueue extends OutputRaw implements OutboundQueueMBean, Runnable
+{
+	public enum Priority
+	{
+		MODERATION, CONTROL, CHAT
+	}
+
+	// How long a QUIT waits for the queue to empty, in seconds
+	private static final long QUIT_TIMEOUT = 10;
+
+	private final FoxBot foxbot;
+
+	private final ReentrantLock queueLock = new ReentrantLock();
+	private final Condition notEmpty = queueLock.newCondition();
+	private final Condition drained = queueLock.newCondition();
+	private final PriorityClass[] classes = new PriorityClass[Priority.values().length];
+	private final FloodControl floodControl;
+	private final int maxPerTarget;
+	private int depth;
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	// Whether the sending thread has taken a line it hasn't sent yet
+	private boolean sending;
+
+	public OutboundQueue(PircBotX bot, FoxBot foxbot)
+	{
+		super(bot);
+		this.foxbot = foxbot;
+
+		floodControl = new FloodControl(foxbot);
+		maxPerTarget = Math.max(1, foxbot.getConfig().getOutboundMaxPerTarget());
+
+		for (int i = 0; i < classes.length; i++)
+		{
+			classes[i] = new PriorityClass();
+		}
+
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("co.foxdev.foxbot:type=OutboundQueue"));
+		}
+		catch (JMException ex)
+		{
+			foxbot.log(ex);
+		}
+
+		Thread thread = new Thread(this, "FoxBot-Outbound");
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void rawLine(String line)
+	{
+		if (line == null)
+		{
+			throw new NullPointerException("Cannot send null messages to server");
+		}
+
+		if (!bot.isConnected())
+		{
+			throw new RuntimeException("Not connected to server");
+		}
+
+		String[] parts = line.split(" ", 3);
+		String command = parts[0].toUpperCase();
+
+		// Late PONGs get us disconnected
+		if (command.equals("PONG"))
+		{
+			rawLineNow(line);
+			return;
+		}
+
+		// Anything queued before a QUIT, like parting channels, would never be sent after it
+		if (command.equals("QUIT"))
+		{
+			try
+			{
+				awaitEmpty(QUIT_TIMEOUT, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			rawLineNow(line);
+			return;
+		}
+
+		String target = parts.length > 1 ? parts[1].toLowerCase() : "";
+		Priority priority = getPriority(command);
+
+		queueLock.lock();
+
+		try
+		{
+			PriorityClass priorityClass = classes[priority.ordinal()];
+			TargetQueue queue = priorityClass.targets.get(target);
+
+			if (queue == null)
+			{
+				queue = new TargetQueue(target);
+				priorityClass.targets.put(target, queue);
+				priorityClass.turns.add(queue);
+			}
+
+			if (queue.lines.size() >= maxPerTarget)
+			{
+				dropped.incrementAndGet();
+				foxbot.log(Level.WARNING, String.format("Dropped %s to %s, %s lines already queued for it", command, target, maxPerTarget));
+				return;
+			}
+
+			queue.lines.add(line);
+			priorityClass.depth++;
+			depth++;
+			notEmpty.signal();
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	private Priority getPriority(String command)
+	{
+		switch (command)
+		{
+			case "KICK":
+			case "MODE":
+			case "REMOVE":
+				return Priority.MODERATION;
+			case "PRIVMSG":
+			case "NOTICE":
+			case "JOIN":
+			case "PART":
+				return Priority.CHAT;
+			default:
+				return Priority.CONTROL;
+		}
+	}
+
+	private String take() throws InterruptedException
+	{
+		queueLock.lock();
+
+		try
+		{
+			while (depth == 0)
+			{
+				notEmpty.await();
+			}
+
+			for (PriorityClass priorityClass : classes)
+			{
+				TargetQueue queue = priorityClass.turns.poll();
+
+				if (queue == null)
+				{
+					continue;
+				}
+
+				String line = queue.lines.poll();
+
+				// Back of the line for this target, or forget it if it has nothing left
+				if (queue.lines.isEmpty())
+				{
+					priorityClass.targets.remove(queue.target);
+				}
+				else
+				{
+					priorityClass.turns.add(queue);
+				}
+
+				priorityClass.depth--;
+				depth--;
+				sending = true;
+				return line;
+			}
+			throw new IllegalStateException("Queue depth is " + depth + " but every queue is empty");
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		while (true)
+		{
+			try
+			{
+				String line = take();
+
+				floodControl.acquire(line);
+
+				try
+				{
+					rawLineNow(line);
+					sent.incrementAndGet();
+				}
+				catch (RuntimeException ex)
+				{
+					// Disconnected while the line was queued
+					dropped.incrementAndGet();
+				}
+				finally
+				{
+					sent();
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				return;
+			}
+		}
+	}
+
+	private void sent()
+	{
+		queueLock.lock();
+
+		try
+		{
+			sending = false;
+
+			if (depth == 0)
+			{
+				drained.signalAll();
+			}
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until everything queued so far has been sent, returning false on timeout.
+	 */
+	public boolean awaitEmpty(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long nanos = unit.toNanos(timeout);
+
+		queueLock.lock();
+
+		try
+		{
+			while (depth > 0 || sending)
+			{
+				if (nanos <= 0)
+				{
+					return false;
+				}
+				nanos = drained.awaitNanos(nanos);
+			}
+			return true;
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	// Called when we disconnect, nothing queued is any use after that.
+	public void clear()
+	{
+		queueLock.lock();
+
+		try
+		{
+			for (PriorityClass priorityClass : classes)
+			{
+				for (TargetQueue queue : priorityClass.targets.values())
+				{
+					dropped.addAndGet(queue.lines.size());
+				}
+				priorityClass.targets.clear();
+				priorityClass.turns.clear();
+				priorityClass.depth = 0;
+			}
+			depth = 0;
+			drained.signalAll();
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	public FloodControl getFloodControl()
+	{
+		return floodControl;
+	}
+
+	@Override
+	public int getOutgoingQueueSize()
+	{
+		return getQueueDepth();
+	}
+
+	@Override
+	public int getQueueDepth()
+	{
+		queueLock.lock();
+
+		try
+		{
+			return depth;
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	public int getQueueDepth(Priority priority)
+	{
+		queueLock.lock();
+
+		try
+		{
+			return classes[priority.ordinal()].depth;
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	@Override
+	public int getModerationQueueDepth()
+	{
+		return getQueueDepth(Priority.MODERATION);
+	}
+
+	@Override
+	public int getControlQueueDepth()
+	{
+		return getQueueDepth(Priority.CONTROL);
+	}
+
+	@Override
+	public int getChatQueueDepth()
+	{
+		return getQueueDepth(Priority.CHAT);
+	}
+
+	@Override
+	public int getTargetCount()
+	{
+		queueLock.lock();
+
+		try
+		{
+			int count = 0;
+
+			for (PriorityClass priorityClass : classes)
+			{
+				count += priorityClass.targets.size();
+			}
+			return count;
+		}
+		finally
+		{
+			queueLock.unlock();
+		}
+	}
+
+	@Override
+	public long getSentCount()
+	{
+		return sent.get();
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return dropped.get();
+	}
+
+	@Override
+	public double getFloodRate()
+	{
+		return floodControl.getRate();
+	}
+
+	@Override
+	public double getFloodTokens()
+	{
+		return floodControl.getTokens();
+	}
+
+	@Override
+	public long getThrottleCount()
+	{
+		return floodControl.getThrottleCount();
+	}
+
+	private static class PriorityClass
+	{
+		private final Map<String, TargetQueue> targets = new HashMap<>();
+		// Targets with something queued, in the order they get their next turn
+		private final ArrayDeque<TargetQueue> turns = new ArrayDeque<>();
+		private int depth;
+	}
+
+	private static class TargetQueue
+	{
+		private final String target;
+		private final ArrayDeque<String> lines = new ArrayDeque<>();
+
+		private TargetQueue(String target)
+		{
+			this.target = target;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+public interface OutboundQueueMBean
+{
+	public int getQueueDepth();
+
+	public int getModerationQueueDepth();
+
+	public int getControlQueueDepth();
+
+	public int getChatQueueDepth();
+
+	public int getTargetCount();
+
+	public long getSentCount();
+
+	public long getDroppedCount();
+
+	public double getFloodRate();
+
+	public double getFloodTokens();
+
+	public long getThrottleCount();
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.listeners;
+
+import co.foxdev.foxbot.FoxBot;
+import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.ConnectEvent;
+import org.pircbotx.hooks.events.DisconnectEvent;
+import org.pircbotx.hooks.events.ServerResponseEvent;
+
+public class ConnectListener extends ListenerAdapter
+{
+    // Numerics that mean a JOIN failed, with the channel as the second parameter
+    private static final int[] JOIN_FAILURES = { 403, 405, 437, 471, 473, 474, 475, 477, 520 };
+    // ERR_LINKCHANNEL, the channel forwarded us to another one
+    private static final int JOIN_FORWARDED = 470;
+
+    private final FoxBot foxbot;
+
+    public ConnectListener(FoxBot foxbot)
+    {
+        this.foxbot = foxbot;
+    }
+
+    @Override
+    public void onConnect(ConnectEvent event)
+    {
+        foxbot.getStartupTimer().phase("connect");
+        foxbot.getStartupTimer().report();
+        foxbot.getScheduler().loadPending();
+        foxbot.getChannelJoiner().joinAll(foxbot.getConfig().getChannels());
+    }
+
+    @Override
+    public void onServerResponse(ServerResponseEvent event)
+    {
+        // :server 470 <nick> <channel> <target> :Forwarding to another channel
+        if (event.getCode() == JOIN_FORWARDED && event.getParsedResponse().size() > 3)
+        {
+            foxbot.getChannelJoiner().forwarded((String) event.getParsedResponse().get(1), (String) event.getParsedResponse().get(2));
+            return;
+        }
+
+        for (int code : JOIN_FAILURES)
+        {
+            if (event.getCode() == code && event.getParsedResponse().size() > 2)
+            {
+                foxbot.getChannelJoiner().failed((String) event.getParsedResponse().get(1), (String) event.getParsedResponse().get(event.getParsedResponse().size() - 1));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onDisconnect(DisconnectEvent event)
+    {
+        foxbot.getPermissionManager().getAccountTracker().clear();
+        foxbot.getOutboundQueue().clear();
+    }
+}
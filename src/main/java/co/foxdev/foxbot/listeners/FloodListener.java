@@ -0,0 +1,50 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.listeners;
+
+import co.foxdev.foxbot.FoxBot;
+import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.ServerResponseEvent;
+
+public class FloodListener extends ListenerAdapter
+{
+    // RPL_TRYAGAIN, ERR_TARGETTOOFAST and ERR_TARGCHANGE
+    private static final int TRY_AGAIN = 263;
+    private static final int TARGET_TOO_FAST = 439;
+    private static final int TARGET_CHANGE = 707;
+
+    private final FoxBot foxbot;
+
+    public FloodListener(FoxBot foxbot)
+    {
+        this.foxbot = foxbot;
+    }
+
+    @Override
+    public void onServerResponse(ServerResponseEvent event)
+    {
+        switch (event.getCode())
+        {
+            case TRY_AGAIN:
+            case TARGET_TOO_FAST:
+            case TARGET_CHANGE:
+                foxbot.getOutboundQueue().getFloodControl().throttled();
+                break;
+        }
+    }
+}
@@ -18,14 +18,14 @@
 package co.foxdev.foxbot.listeners;
 
 import co.foxdev.foxbot.FoxBot;
-import co.foxdev.foxbot.utils.Utils;
+import co.foxdev.foxbot.commands.CommandArgs;
+import co.foxdev.foxbot.urlpreview.UrlScanner;
 import org.pircbotx.Channel;
 import org.pircbotx.User;
 import org.pircbotx.hooks.ListenerAdapter;
 import org.pircbotx.hooks.events.MessageEvent;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class MessageListener extends ListenerAdapter
 {
@@ -36,8 +36,6 @@ public class MessageListener extends ListenerAdapter
         this.foxbot = foxbot;
     }
 
-    private static final Pattern URL_PATTERN = Pattern.compile(".*((https?)[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]).*");
-
     public void onMessage(MessageEvent event)
     {
         String message = event.getMessage();
@@ -46,21 +44,21 @@ public class MessageListener extends ListenerAdapter
 
         if (!foxbot.getConfig().getIgnoredChannels().contains(channel.getName()))
         {
-            if (message.length() > 0 && (message.charAt(0) == foxbot.getConfig().getCommandPrefix() || message.startsWith(foxbot.getNick() + ", ")))
+            CommandArgs command = CommandArgs.parse(message, foxbot.getConfig().getCommandPrefix(), foxbot.getNick());
+
+            if (command != null)
             {
-                foxbot.getCommandManager().dispatchCommand(event, message.substring(message.charAt(0) == foxbot.getConfig().getCommandPrefix() ? 1 : foxbot.getConfig().getBotNick().length() + 2));
+                foxbot.getCommandManager().dispatchCommand(event, command);
 	            return;
             }
 
-            Matcher matcher = URL_PATTERN.matcher(message);
+            List<String> urls = UrlScanner.find(message, foxbot.getConfig().getUrlPreviewMaxPerMessage());
 
-            if (matcher.matches() && !user.getNick().equals(foxbot.getNick()) && foxbot.getPermissionManager().userHasQuietPermission(user, "chat.urls"))
+            if (!urls.isEmpty() && !user.getNick().equals(foxbot.getNick()) && foxbot.getPermissionManager().userHasQuietPermission(user, "chat.urls"))
             {
-                message = Utils.parseChatUrl(matcher.group(1), user);
-
-                if (!message.isEmpty() && !message.equalsIgnoreCase("null"))
+                for (String url : urls)
                 {
-                    channel.send().message(message);
+                    foxbot.getUrlPreviewer().preview(url, channel, user);
                 }
             }
         }
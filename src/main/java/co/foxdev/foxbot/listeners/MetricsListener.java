@@ -0,0 +1,51 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.listeners;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.metrics.Counter;
+import org.pircbotx.hooks.Event;
+import org.pircbotx.hooks.ListenerAdapter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class MetricsListener extends ListenerAdapter
+{
+    private final FoxBot foxbot;
+
+    private final ConcurrentMap<Class<?>, Counter> events = new ConcurrentHashMap<>();
+
+    public MetricsListener(FoxBot foxbot)
+    {
+        this.foxbot = foxbot;
+    }
+
+    @Override
+    public void onEvent(Event event) throws Exception
+    {
+        Counter counter = events.get(event.getClass());
+
+        if (counter == null)
+        {
+            counter = foxbot.getMetrics().counter("foxbot_events_total", "IRC events received, by type", "type", event.getClass().getSimpleName());
+            events.put(event.getClass(), counter);
+        }
+        counter.increment();
+    }
+}
@@ -24,7 +24,7 @@ import org.pircbotx.User;
 import org.pircbotx.hooks.ListenerAdapter;
 import org.pircbotx.hooks.events.*;
 
-import java.util.*;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class UserListener extends ListenerAdapter
@@ -58,6 +58,8 @@ public class UserListener extends ListenerAdapter
         User user = event.getUser();
         String newNick = event.getNewNick();
 
+        foxbot.getPermissionManager().userChangedNick(event.getOldNick(), newNick);
+
         if (foxbot.getPermissionManager().isNickProtected(newNick))
         {
             for (Channel channel : foxbot.getChannels())
@@ -99,6 +101,8 @@ public class UserListener extends ListenerAdapter
 
         if (nick.equals(foxbot.getNick()))
         {
+            foxbot.getScheduler().channelJoined(channel);
+            foxbot.getChannelJoiner().joined(channel.getName());
             return;
         }
 
@@ -152,8 +156,8 @@ public class UserListener extends ListenerAdapter
         {
             if (foxbot.getConfig().getAutoRejoinOnKick() && !foxbot.getPermissionManager().userHasQuietPermission(kicker, "bot.allowkick"))
             {
-                new Timer().schedule(
-                        new TimerTask()
+                foxbot.getScheduler().schedule(
+                        new Runnable()
                         {
                             @Override
                             public void run()
@@ -161,7 +165,7 @@ public class UserListener extends ListenerAdapter
                                 foxbot.joinChannel(channel);
                             }
                         },
-                        TimeUnit.SECONDS.toMillis(foxbot.getConfig().getAutoRejoinDelay())
+                        foxbot.getConfig().getAutoRejoinDelay(), TimeUnit.SECONDS
                 );
             }
         }
@@ -0,0 +1,59 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Counter implements Metric
+{
+	private final AtomicLong value = new AtomicLong();
+
+	public void increment()
+	{
+		value.incrementAndGet();
+	}
+
+	public void add(long amount)
+	{
+		value.addAndGet(amount);
+	}
+
+	public long get()
+	{
+		return value.get();
+	}
+
+	@Override
+	public String getType()
+	{
+		return "counter";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels)
+	{
+		MetricsRegistry.writeSample(out, name, labels, get());
+	}
+
+	@Override
+	public void snapshot(Map<String, Double> out, String key)
+	{
+		out.put(key, (double) get());
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import java.util.Map;
+
+/**
+ * A value that is read when the metrics are, rather than recorded as things happen.
+ */
+public abstract class Gauge implements Metric
+{
+	public abstract double getValue();
+
+	@Override
+	public String getType()
+	{
+		return "gauge";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels)
+	{
+		MetricsRegistry.writeSample(out, name, labels, read());
+	}
+
+	@Override
+	public void snapshot(Map<String, Double> out, String key)
+	{
+		out.put(key, read());
+	}
+
+	private double read()
+	{
+		try
+		{
+			return getValue();
+		}
+		catch (RuntimeException ex)
+		{
+			// Whatever it reads from isn't there yet, e.g. before we've connected
+			return Double.NaN;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in fixed millisecond buckets. Recording is a few atomic increments, with no
+ * locking and no allocation.
+ */
+public class Histogram implements Metric
+{
+	private static final long[] BUCKETS = { 1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+	// One more than BUCKETS, for everything over the last one
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+
+	public void record(long millis)
+	{
+		int bucket = 0;
+
+		while (bucket < BUCKETS.length && millis > BUCKETS[bucket])
+		{
+			bucket++;
+		}
+
+		counts.incrementAndGet(bucket);
+		count.incrementAndGet();
+		sum.addAndGet(millis);
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	public long getSum()
+	{
+		return sum.get();
+	}
+
+	@Override
+	public String getType()
+	{
+		return "histogram";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels)
+	{
+		String separator = labels.isEmpty() ? "" : labels + ",";
+		long cumulative = 0;
+
+		for (int i = 0; i < BUCKETS.length; i++)
+		{
+			cumulative += counts.get(i);
+			MetricsRegistry.writeSample(out, name + "_bucket", separator + "le=\"" + BUCKETS[i] + "\"", cumulative);
+		}
+
+		cumulative += counts.get(BUCKETS.length);
+		MetricsRegistry.writeSample(out, name + "_bucket", separator + "le=\"+Inf\"", cumulative);
+		MetricsRegistry.writeSample(out, name + "_sum", labels, getSum());
+		MetricsRegistry.writeSample(out, name + "_count", labels, getCount());
+	}
+
+	@Override
+	public void snapshot(Map<String, Double> out, String key)
+	{
+		out.put(key + ".count", (double) getCount());
+		out.put(key + ".sum", (double) getSum());
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import javax.management.*;
+import java.util.Map;
+
+/**
+ * Shows every metric as a read-only attribute. The attribute list is rebuilt whenever it's asked
+ * for, since metrics for new commands and events turn up as the bot runs.
+ */
+public class MetricsDynamicMBean implements DynamicMBean
+{
+	private final MetricsRegistry registry;
+
+	public MetricsDynamicMBean(MetricsRegistry registry)
+	{
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException
+	{
+		Double value = registry.snapshot().get(attribute);
+
+		if (value == null)
+		{
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes)
+	{
+		Map<String, Double> snapshot = registry.snapshot();
+		AttributeList list = new AttributeList();
+
+		for (String attribute : attributes)
+		{
+			if (snapshot.containsKey(attribute))
+			{
+				list.add(new Attribute(attribute, snapshot.get(attribute)));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+	{
+		throw new AttributeNotFoundException("Metrics are read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes)
+	{
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException
+	{
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo()
+	{
+		Map<String, Double> snapshot = registry.snapshot();
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+		int i = 0;
+
+		for (String name : snapshot.keySet())
+		{
+			attributes[i++] = new MBeanAttributeInfo(name, "java.lang.Double", name, true, false, false);
+		}
+		return new MBeanInfo(getClass().getName(), "FoxBot metrics", attributes, null, null, null);
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import co.foxdev.foxbot.FoxBot;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Every metric the bot keeps, by name and labels. Metrics are created the first time they're asked
+ * for, so callers on hot paths should hang on to the ones they use. Everything here can be read over
+ * JMX as co.foxdev.foxbot:type=Metrics, and over HTTP in Prometheus format if metrics.http-enabled
+ * is set.
+ */
+public class MetricsRegistry
+{
+	private final FoxBot foxbot;
+
+	// Name plus formatted labels to the metric
+	private final ConcurrentMap<String, Entry> metrics = new ConcurrentHashMap<>();
+
+	public MetricsRegistry(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsDynamicMBean(this), new ObjectName("co.foxdev.foxbot:type=Metrics"));
+		}
+		catch (JMException ex)
+		{
+			foxbot.log(ex);
+		}
+		registerJvmMetrics();
+	}
+
+	/**
+	 * @param labels alternating label names and values
+	 */
+	public Counter counter(String name, String help, String... labels)
+	{
+		Metric metric = getOrCreate(name, help, labels, new Counter());
+
+		if (!(metric instanceof Counter))
+		{
+			throw new IllegalArgumentException(String.format("%s is already registered as a counter read from elsewhere", name));
+		}
+		return (Counter) metric;
+	}
+
+	// For a count kept somewhere else, read each time the metrics are.
+	public void counter(String name, String help, FunctionCounter counter, String... labels)
+	{
+		getOrCreate(name, help, labels, counter);
+	}
+
+	public Histogram histogram(String name, String help, String... labels)
+	{
+		return (Histogram) getOrCreate(name, help, labels, new Histogram());
+	}
+
+	public void gauge(String name, String help, Gauge gauge, String... labels)
+	{
+		getOrCreate(name, help, labels, gauge);
+	}
+
+	private Metric getOrCreate(String name, String help, String[] labels, Metric created)
+	{
+		String formatted = formatLabels(labels);
+		String key = formatted.isEmpty() ? name : name + "{" + formatted + "}";
+		Entry entry = metrics.get(key);
+
+		if (entry == null)
+		{
+			Entry newEntry = new Entry(name, help, formatted, created);
+
+			entry = metrics.putIfAbsent(key, newEntry);
+
+			if (entry == null)
+			{
+				entry = newEntry;
+			}
+		}
+
+		if (!entry.metric.getType().equals(created.getType()))
+		{
+			throw new IllegalArgumentException(String.format("%s is already registered as a %s", key, entry.metric.getType()));
+		}
+		return entry.metric;
+	}
+
+	private String formatLabels(String[] labels)
+	{
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i + 1 < labels.length; i += 2)
+		{
+			if (builder.length() > 0)
+			{
+				builder.append(',');
+			}
+			builder.append(labels[i]).append("=\"").append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Everything in the Prometheus text exposition format.
+	 */
+	public String toPrometheus()
+	{
+		StringBuilder out = new StringBuilder();
+		String lastName = null;
+
+		Map<String, Entry> sorted = new TreeMap<>();
+
+		// Sorting keeps every metric with the same name together, so HELP and TYPE are only written once.
+		// The space sorts before any character allowed in a name, so foxbot_x can't be split by foxbot_x_y.
+		for (Entry entry : metrics.values())
+		{
+			sorted.put(entry.name + ' ' + entry.labels, entry);
+		}
+
+		for (Entry entry : sorted.values())
+		{
+			if (!entry.name.equals(lastName))
+			{
+				out.append("# HELP ").append(entry.name).append(' ').append(entry.help).append('\n');
+				out.append("# TYPE ").append(entry.name).append(' ').append(entry.metric.getType()).append('\n');
+				lastName = entry.name;
+			}
+			entry.metric.write(out, entry.name, entry.labels);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Every value under a flat name, like foxbot_commands_total.command.ping, for JMX.
+	 */
+	public Map<String, Double> snapshot()
+	{
+		Map<String, Double> values = new TreeMap<>();
+
+		for (Entry entry : metrics.values())
+		{
+			String key = entry.name + (entry.labels.isEmpty() ? "" : "." + entry.labels.replaceAll("\"?,", ".").replace("=\"", ".").replace("\"", ""));
+
+			entry.metric.snapshot(values, key);
+		}
+		return values;
+	}
+
+	static void writeSample(StringBuilder out, String name, String labels, double value)
+	{
+		out.append(name);
+
+		if (!labels.isEmpty())
+		{
+			out.append('{').append(labels).append('}');
+		}
+
+		out.append(' ');
+
+		if (value == (long) value)
+		{
+			out.append((long) value);
+		}
+		else
+		{
+			out.append(Double.isNaN(value) ? "NaN" : Double.toString(value));
+		}
+		out.append('\n');
+	}
+
+	private void registerJvmMetrics()
+	{
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		gauge("jvm_memory_heap_used_bytes", "Heap memory in use", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return memory.getHeapMemoryUsage().getUsed();
+			}
+		});
+		gauge("jvm_memory_heap_max_bytes", "Maximum heap memory", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return memory.getHeapMemoryUsage().getMax();
+			}
+		});
+		gauge("jvm_threads_live", "Live threads", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return threads.getThreadCount();
+			}
+		});
+		gauge("jvm_uptime_seconds", "Time since the JVM started", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return ManagementFactory.getRuntimeMXBean().getUptime() / 1000D;
+			}
+		});
+
+		for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			counter("jvm_gc_collections_total", "Garbage collections", new FunctionCounter()
+			{
+				@Override
+				public double getValue()
+				{
+					return collector.getCollectionCount();
+				}
+			}, "gc", collector.getName());
+			counter("jvm_gc_collection_seconds_total", "Time spent in garbage collection", new FunctionCounter()
+			{
+				@Override
+				public double getValue()
+				{
+					return collector.getCollectionTime() / 1000D;
+				}
+			}, "gc", collector.getName());
+		}
+	}
+
+	private static class Entry
+	{
+		private final String name;
+		private final String help;
+		private final String labels;
+		private final Metric metric;
+
+		private Entry(String name, String help, String labels, Metric metric)
+		{
+			this.name = name;
+			this.help = help;
+			this.labels = labels;
+			this.metric = metric;
+		}
+	}
+}
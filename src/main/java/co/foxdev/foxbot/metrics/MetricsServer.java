@@ -0,0 +1,83 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import co.foxdev.foxbot.FoxBot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics at /metrics in Prometheus text format. Binds to localhost by default, there's
+ * nothing here that should be public.
+ */
+public class MetricsServer implements HttpHandler
+{
+	private final FoxBot foxbot;
+
+	private HttpServer server;
+
+	public MetricsServer(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	public void start(String address, int port)
+	{
+		try
+		{
+			server = HttpServer.create(new InetSocketAddress(address, port), 0);
+			server.createContext("/metrics", this);
+			// One request at a time on the server's own thread is plenty
+			server.setExecutor(null);
+			server.start();
+			foxbot.log(String.format("Serving metrics on http://%s:%s/metrics", address, port));
+		}
+		catch (IOException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException
+	{
+		byte[] body = foxbot.getMetrics().toPrometheus().getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+
+		OutputStream out = exchange.getResponseBody();
+
+		out.write(body);
+		out.close();
+	}
+
+	public void stop()
+	{
+		if (server != null)
+		{
+			server.stop(0);
+		}
+	}
+}
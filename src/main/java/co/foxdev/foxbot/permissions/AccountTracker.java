@@ -0,0 +1,125 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.permissions;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks which services account each nick is logged into, using the IRCv3 account-notify,
+ * extended-join and account-tag capabilities. Only trusted once the server has acknowledged
+ * account-notify and extended-join, otherwise we'd miss logouts and the accounts of people joining.
+ * Servers only tell us about users we share a channel with, so PermissionManager drops entries
+ * once that stops being true.
+ */
+public class AccountTracker
+{
+	public static final String ACCOUNT_NOTIFY = "account-notify";
+	public static final String EXTENDED_JOIN = "extended-join";
+	public static final String ACCOUNT_TAG = "account-tag";
+
+	// What servers send in place of an account name for users who aren't logged in
+	private static final String LOGGED_OUT = "*";
+
+	private final Set<String> capabilities = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final ConcurrentMap<String, String> accounts = new ConcurrentHashMap<>();
+
+	public void capabilityEnabled(String capability)
+	{
+		capabilities.add(capability.toLowerCase());
+	}
+
+	public boolean hasCapability(String capability)
+	{
+		return capabilities.contains(capability);
+	}
+
+	public boolean isEnabled()
+	{
+		return hasCapability(ACCOUNT_NOTIFY) && hasCapability(EXTENDED_JOIN);
+	}
+
+	public void setAccount(String nick, String account)
+	{
+		accounts.put(nick.toLowerCase(), account == null || account.isEmpty() ? LOGGED_OUT : account);
+	}
+
+	// Returns null if we don't know, in which case the caller has to fall back to WHOIS.
+	public Boolean isLoggedIn(String nick)
+	{
+		if (!isEnabled())
+		{
+			return null;
+		}
+
+		String account = accounts.get(nick.toLowerCase());
+
+		if (account == null)
+		{
+			return null;
+		}
+		return !account.equals(LOGGED_OUT);
+	}
+
+	public boolean isKnown(String nick)
+	{
+		return accounts.containsKey(nick.toLowerCase());
+	}
+
+	public String getAccount(String nick)
+	{
+		String account = accounts.get(nick.toLowerCase());
+
+		return account == null || account.equals(LOGGED_OUT) ? null : account;
+	}
+
+	public void rename(String oldNick, String newNick)
+	{
+		String account = accounts.remove(oldNick.toLowerCase());
+
+		if (account != null)
+		{
+			accounts.put(newNick.toLowerCase(), account);
+		}
+	}
+
+	// Lower case nicks with an entry, logged in or not.
+	public Set<String> getNicks()
+	{
+		return Collections.unmodifiableSet(accounts.keySet());
+	}
+
+	public void remove(String nick)
+	{
+		accounts.remove(nick.toLowerCase());
+	}
+
+	// Capabilities are negotiated again on every connect
+	public void clear()
+	{
+		capabilities.clear();
+		accounts.clear();
+	}
+
+	public int size()
+	{
+		return accounts.size();
+	}
+}
@@ -18,20 +18,29 @@
 package co.foxdev.foxbot.permissions;
 
 import co.foxdev.foxbot.FoxBot;
-import co.foxdev.foxbot.config.yamlconfig.file.FileConfiguration;
 import org.pircbotx.User;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class PermissionManager
 {
     private final FoxBot foxbot;
-    private List<User> authedUsers = new ArrayList<>();
+    private final VerificationCache verificationCache;
+    private final AccountTracker accountTracker = new AccountTracker();
+    private volatile PermissionResolver resolver;
 
     public PermissionManager(FoxBot foxbot)
     {
         this.foxbot = foxbot;
+        this.verificationCache = new VerificationCache(foxbot);
+        reload();
+    }
+
+    // Swaps in a freshly compiled copy of permissions.yml, checks in progress keep using the old one.
+    public void reload()
+    {
+        resolver = PermissionResolver.compile(foxbot.getConfig().getBotPermissions());
+        foxbot.log(String.format("Loaded permissions for %s users", resolver.getUserCount()));
     }
 
     // Exactly the same as userHasPermission(), except this gives no output.
@@ -48,22 +57,12 @@ public class PermissionManager
 	private boolean checkPerm(User user, String permission, boolean quiet)
 	{
 		String authType = foxbot.getConfig().getMatchUsersByHostmask() ? user.getHostmask() : user.getNick();
-		FileConfiguration permissions = foxbot.getConfig().getBotPermissions();
 
 		if (foxbot.getConfig().getUsersMustBeVerified())
 		{
-			if (!authedUsers.contains(user) && user.isVerified())
+			if (isVerified(user))
 			{
-				authedUsers.add(user);
-			}
-
-			if (authedUsers.contains(user))
-			{
-				if (permissions.getStringList("default").contains(permission))
-				{
-					return !permissions.getStringList(authType).contains("-" + permission);
-				}
-				return permissions.getStringList(authType).contains(permission) || permissions.getStringList(authType).contains("*");
+				return resolver.hasPermission(authType, permission);
 			}
 
 			if (!quiet)
@@ -72,13 +71,32 @@ public class PermissionManager
 			}
 			return false;
 		}
-		if (permissions.getStringList("default").contains(permission))
-		{
-			return !permissions.getStringList(authType).contains("-" + permission);
-		}
-		return permissions.getStringList(authType).contains(permission) || permissions.getStringList(authType).contains("*");
+		return resolver.hasPermission(authType, permission);
 	}
 
+    private boolean isVerified(User user)
+    {
+        Boolean loggedIn = getTrackedLogin(user.getNick());
+
+        // Only WHOIS if the server hasn't told us about this user's account
+        if (loggedIn != null)
+        {
+            return loggedIn;
+        }
+        return verificationCache.isVerified(user);
+    }
+
+    // What the server has told us about this nick's account, or null if we have to WHOIS.
+    Boolean getTrackedLogin(String nick)
+    {
+        // Someone we don't share a channel with could have quit and had their nick taken without us hearing
+        if (!foxbot.sharesChannel(nick))
+        {
+            return null;
+        }
+        return accountTracker.isLoggedIn(nick);
+    }
+
     public boolean isNickProtected(String nick)
     {
         return foxbot.getConfig().getBotNickProtection().getString(nick) != null && !foxbot.getUser(nick).getHostmask().equals(foxbot.getConfig().getBotNickProtection().getString(nick + ".hostmask"));
@@ -86,9 +104,78 @@ public class PermissionManager
 
     public void removeAuthedUser(User user)
     {
-        if (authedUsers.contains(user))
+        removeAuthedUser(user.getNick());
+    }
+
+    public void removeAuthedUser(String nick)
+    {
+        verificationCache.invalidate(nick);
+        accountTracker.remove(nick);
+    }
+
+    public void userChangedNick(String oldNick, String newNick)
+    {
+        verificationCache.invalidate(oldNick);
+        verificationCache.invalidate(newNick);
+        accountTracker.rename(oldNick, newNick);
+    }
+
+    // From an ACCOUNT message or an account tag, which can come from users outside our channels.
+    public void accountChanged(String nick, String account)
+    {
+        if (!foxbot.sharesChannel(nick))
+        {
+            removeAuthedUser(nick);
+            return;
+        }
+        updateAccount(nick, account);
+    }
+
+    // From an extended JOIN, which is seen before the user is added to the channel.
+    public void accountJoined(String nick, String account)
+    {
+        updateAccount(nick, account);
+    }
+
+    private void updateAccount(String nick, String account)
+    {
+        String normalised = account.equals("*") ? null : account;
+        String previous = accountTracker.getAccount(nick);
+
+        if (accountTracker.isKnown(nick) && (previous == null ? normalised == null : previous.equals(normalised)))
         {
-            authedUsers.remove(user);
+            return;
         }
+
+        verificationCache.invalidate(nick);
+        accountTracker.setAccount(nick, normalised);
+    }
+
+    // Call after a PART or KICK has been applied, we won't hear about this user's account or quit any more.
+    public void userLeftChannel(String nick)
+    {
+        if (!foxbot.sharesChannel(nick))
+        {
+            removeAuthedUser(nick);
+        }
+    }
+
+    // Call after the bot itself parts or is kicked, which can leave any number of users unshared.
+    public void botLeftChannel()
+    {
+        for (String nick : new ArrayList<>(accountTracker.getNicks()))
+        {
+            userLeftChannel(nick);
+        }
+    }
+
+    public AccountTracker getAccountTracker()
+    {
+        return accountTracker;
+    }
+
+    public VerificationCache getVerificationCache()
+    {
+        return verificationCache;
     }
 }
\ No newline at end of file
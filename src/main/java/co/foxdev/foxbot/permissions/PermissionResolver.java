@@ -0,0 +1,115 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.permissions;
+
+import co.foxdev.foxbot.config.yamlconfig.ConfigurationSection;
+
+import java.util.*;
+
+/**
+ * permissions.yml compiled down to one set of effective permissions per user, so a
+ * permission check is a couple of hash lookups instead of walking the config.
+ */
+public class PermissionResolver
+{
+	private static final String DEFAULT_GROUP = "default";
+	private static final String WILDCARD = "*";
+
+	private final Set<String> defaults;
+	private final Map<String, UserPermissions> users;
+
+	private PermissionResolver(Set<String> defaults, Map<String, UserPermissions> users)
+	{
+		this.defaults = defaults;
+		this.users = users;
+	}
+
+	public static PermissionResolver compile(ConfigurationSection permissions)
+	{
+		Set<String> defaults = Collections.unmodifiableSet(new HashSet<>(permissions.getStringList(DEFAULT_GROUP)));
+		Map<String, UserPermissions> users = new HashMap<>();
+
+		for (String identity : permissions.getKeys(true))
+		{
+			if (identity.equals(DEFAULT_GROUP) || !permissions.isList(identity))
+			{
+				continue;
+			}
+
+			List<String> nodes = permissions.getStringList(identity);
+			Set<String> allowed = new HashSet<>(defaults);
+			Set<String> denied = new HashSet<>();
+
+			for (String node : nodes)
+			{
+				if (!node.startsWith("-") && !node.equals(WILDCARD))
+				{
+					allowed.add(node);
+				}
+			}
+
+			// A -node only takes away permissions granted by the default group
+			for (String node : defaults)
+			{
+				if (nodes.contains("-" + node))
+				{
+					allowed.remove(node);
+					denied.add(node);
+				}
+			}
+
+			users.put(identity, new UserPermissions(Collections.unmodifiableSet(allowed), Collections.unmodifiableSet(denied), nodes.contains(WILDCARD)));
+		}
+		return new PermissionResolver(defaults, Collections.unmodifiableMap(users));
+	}
+
+	public boolean hasPermission(String identity, String permission)
+	{
+		UserPermissions user = users.get(identity);
+
+		if (user == null)
+		{
+			return defaults.contains(permission);
+		}
+
+		if (user.wildcard)
+		{
+			return !user.denied.contains(permission);
+		}
+		return user.allowed.contains(permission);
+	}
+
+	public int getUserCount()
+	{
+		return users.size();
+	}
+
+	private static class UserPermissions
+	{
+		private final Set<String> allowed;
+		private final Set<String> denied;
+		private final boolean wildcard;
+
+		private UserPermissions(Set<String> allowed, Set<String> denied, boolean wildcard)
+		{
+			this.allowed = allowed;
+			this.denied = denied;
+			this.wildcard = wildcard;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.permissions;
+
+import co.foxdev.foxbot.FoxBot;
+import org.pircbotx.User;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which users NickServ has verified, so permission checks don't need a WHOIS every time.
+ * Entries are keyed by nick, only count for the hostmask they were verified with and expire after
+ * auth.verification-ttl seconds.
+ */
+public class VerificationCache
+{
+	private final FoxBot foxbot;
+
+	private final ConcurrentMap<String, Verification> verified = new ConcurrentHashMap<>();
+
+	public VerificationCache(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	public boolean isVerified(User user)
+	{
+		String nick = user.getNick().toLowerCase();
+		Verification verification = verified.get(nick);
+		long now = System.currentTimeMillis();
+
+		if (verification != null)
+		{
+			if (verification.expires > now && verification.hostmask.equals(user.getHostmask()))
+			{
+				return true;
+			}
+			verified.remove(nick, verification);
+		}
+
+		// Not cached, ask NickServ
+		if (!user.isVerified())
+		{
+			return false;
+		}
+
+		verified.put(nick, new Verification(user.getHostmask(), now + TimeUnit.SECONDS.toMillis(foxbot.getConfig().getVerificationTtl())));
+		return true;
+	}
+
+	public void invalidate(String nick)
+	{
+		verified.remove(nick.toLowerCase());
+	}
+
+	public int size()
+	{
+		return verified.size();
+	}
+
+	private static class Verification
+	{
+		private final String hostmask;
+		private final long expires;
+
+		private Verification(String hostmask, long expires)
+		{
+			this.hostmask = hostmask;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes the list of commands, listeners and URL preview extractors to the jar at compile time, so FoxBot
+ * doesn't have to scan the classpath for them when it starts.
+ */
+@SupportedAnnotationTypes("*")
+public class IndexProcessor extends AbstractProcessor
+{
+	public static final String COMMAND_INDEX = "META-INF/foxbot/commands";
+	public static final String LISTENER_INDEX = "META-INF/foxbot/listeners";
+	public static final String EXTRACTOR_INDEX = "META-INF/foxbot/extractors";
+
+	private static final String COMMAND_CLASS = "co.foxdev.foxbot.commands.Command";
+	private static final String LISTENER_CLASS = "org.pircbotx.hooks.ListenerAdapter";
+	private static final String EXTRACTOR_CLASS = "co.foxdev.foxbot.urlpreview.UrlPreviewExtractor";
+
+	private final Set<String> commands = new TreeSet<>();
+	private final Set<String> listeners = new TreeSet<>();
+	private final Set<String> extractors = new TreeSet<>();
+	private boolean loaded = false;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (!loaded)
+		{
+			// Incremental builds only pass us the changed classes, so start from the last index
+			readIndex(COMMAND_INDEX, commands);
+			readIndex(LISTENER_INDEX, listeners);
+			readIndex(EXTRACTOR_INDEX, extractors);
+			loaded = true;
+		}
+
+		if (roundEnv.processingOver())
+		{
+			writeIndex(COMMAND_INDEX, commands);
+			writeIndex(LISTENER_INDEX, listeners);
+			writeIndex(EXTRACTOR_INDEX, extractors);
+			return false;
+		}
+
+		TypeElement commandElement = processingEnv.getElementUtils().getTypeElement(COMMAND_CLASS);
+		TypeElement listenerElement = processingEnv.getElementUtils().getTypeElement(LISTENER_CLASS);
+		TypeElement extractorElement = processingEnv.getElementUtils().getTypeElement(EXTRACTOR_CLASS);
+
+		if (commandElement == null || listenerElement == null || extractorElement == null)
+		{
+			return false;
+		}
+
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror commandType = types.erasure(commandElement.asType());
+		TypeMirror listenerType = types.erasure(listenerElement.asType());
+		TypeMirror extractorType = types.erasure(extractorElement.asType());
+
+		for (Element element : roundEnv.getRootElements())
+		{
+			if (element.getKind() != ElementKind.CLASS)
+			{
+				continue;
+			}
+
+			String name = ((TypeElement) element).getQualifiedName().toString();
+
+			commands.remove(name);
+			listeners.remove(name);
+			extractors.remove(name);
+
+			if (element.getModifiers().contains(Modifier.ABSTRACT) || !element.getModifiers().contains(Modifier.PUBLIC))
+			{
+				continue;
+			}
+
+			TypeMirror type = types.erasure(element.asType());
+
+			if (types.isSubtype(type, commandType))
+			{
+				commands.add(name);
+			}
+			else if (types.isSubtype(type, listenerType))
+			{
+				listeners.add(name);
+			}
+			else if (types.isSubtype(type, extractorType))
+			{
+				extractors.add(name);
+			}
+		}
+		return false;
+	}
+
+	private void readIndex(String index, Set<String> entries)
+	{
+		try
+		{
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", index);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), "UTF-8"));
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				// Drop anything that has been deleted since the last build
+				if (!line.isEmpty() && processingEnv.getElementUtils().getTypeElement(line) != null)
+				{
+					entries.add(line);
+				}
+			}
+			reader.close();
+		}
+		catch (IOException ignored)
+		{
+			// No previous index, this is a clean build
+		}
+	}
+
+	private void writeIndex(String index, Set<String> entries)
+	{
+		try
+		{
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", index);
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(file.openOutputStream(), "UTF-8"));
+
+			for (String entry : entries)
+			{
+				writer.write(entry);
+				writer.newLine();
+			}
+			writer.close();
+		}
+		catch (IOException ex)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Could not write %s: %s", index, ex.getMessage()));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+/**
+ * A preview and when it stops being valid. The preview is null if the URL couldn't be fetched at
+ * all, so we remember not to try again for a while.
+ */
+public class CachedUrlPreview
+{
+	private final String url;
+	private final UrlPreview preview;
+	private final long expires;
+
+	public CachedUrlPreview(String url, UrlPreview preview, long expires)
+	{
+		this.url = url;
+		this.preview = preview;
+		this.expires = expires;
+	}
+
+	public boolean isExpired(long now)
+	{
+		return expires <= now;
+	}
+
+	public String getUrl()
+	{
+		return url;
+	}
+
+	public UrlPreview getPreview()
+	{
+		return preview;
+	}
+
+	public long getExpires()
+	{
+		return expires;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * The parts of a response a preview is made from. The document is null for anything that isn't
+ * HTML, and only covers the head of the page unless the whole page was asked for.
+ */
+public class FetchedPage
+{
+	private final String url;
+	private final int status;
+	private final String statusMessage;
+	private final String contentType;
+	private final long contentLength;
+	private final Document document;
+
+	public FetchedPage(String url, int status, String statusMessage, String contentType, long contentLength, Document document)
+	{
+		this.url = url;
+		this.status = status;
+		this.statusMessage = statusMessage;
+		this.contentType = contentType;
+		this.contentLength = contentLength;
+		this.document = document;
+	}
+
+	public boolean isHtml()
+	{
+		return contentType.contains("html");
+	}
+
+	// Human readable size, like the old Jsoup previews showed.
+	public String getSize()
+	{
+		return contentLength < 0 ? "Unknown" : (contentLength / 1024) + "kb";
+	}
+
+	public String getUrl()
+	{
+		return url;
+	}
+
+	public int getStatus()
+	{
+		return status;
+	}
+
+	public String getStatusMessage()
+	{
+		return statusMessage;
+	}
+
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	public long getContentLength()
+	{
+		return contentLength;
+	}
+
+	public Document getDocument()
+	{
+		return document;
+	}
+}
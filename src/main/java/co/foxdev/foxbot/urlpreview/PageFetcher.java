@@ -0,0 +1,226 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches just enough of a page to preview it. HTML is read until the end of the head and the
+ * connection is dropped there, and nothing else has its body read at all. URLs that look like
+ * images or downloads are only asked for their headers.
+ */
+public class PageFetcher
+{
+	private static final String USER_AGENT = "FoxBot // http://foxbot.foxdev.co // Seeing this? It means your web address was posted on IRC and FoxBot is getting page info (title, size, content type) to send to the channel. Nothing to worry about.";
+	private static final int TIMEOUT = 3000;
+	private static final int MAX_REDIRECTS = 5;
+	private static final int MAX_BODY_SIZE = 100000;
+	private static final byte[] HEAD_END = "</head".getBytes();
+	private static final String[] BINARY_EXTENSIONS = { ".png", ".jpg", ".jpeg", ".gif", ".webp", ".bmp", ".svg", ".ico", ".mp3", ".ogg", ".wav", ".flac", ".mp4", ".webm", ".mkv", ".avi", ".mov", ".zip", ".gz", ".tar", ".7z", ".rar", ".jar", ".exe", ".iso", ".pdf" };
+
+	/**
+	 * @param wholePage read the whole page (up to 100kB) instead of stopping after the head, for
+	 *                  previews that need something from the body
+	 */
+	public FetchedPage fetch(String url, boolean wholePage) throws IOException
+	{
+		String method = looksBinary(url) ? "HEAD" : "GET";
+		URL current = new URL(url);
+
+		for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++)
+		{
+			HttpURLConnection conn = (HttpURLConnection) current.openConnection();
+
+			try
+			{
+				conn.setRequestMethod(method);
+				conn.setInstanceFollowRedirects(false);
+				conn.setConnectTimeout(TIMEOUT);
+				conn.setReadTimeout(TIMEOUT);
+				conn.setRequestProperty("User-Agent", USER_AGENT);
+				conn.setRequestProperty("Accept-Encoding", "gzip");
+
+				int status = conn.getResponseCode();
+				String location = conn.getHeaderField("Location");
+
+				if (status >= 300 && status < 400 && location != null)
+				{
+					current = new URL(current, location);
+					continue;
+				}
+
+				// Some servers don't do HEAD, ask again and hang up after the headers
+				if (method.equals("HEAD") && (status == HttpURLConnection.HTTP_BAD_METHOD || status == HttpURLConnection.HTTP_NOT_IMPLEMENTED))
+				{
+					method = "GET";
+					redirects--;
+					continue;
+				}
+
+				String[] contentTypeParts = conn.getContentType() == null ? new String[] { "unknown" } : conn.getContentType().split(";");
+				String contentType = contentTypeParts[0].trim();
+				Document document = null;
+
+				if (method.equals("GET") && status == HttpURLConnection.HTTP_OK && contentType.contains("html"))
+				{
+					document = parse(conn, current.toString(), getCharset(contentTypeParts), wholePage);
+				}
+				return new FetchedPage(current.toString(), status, conn.getResponseMessage(), contentType, conn.getContentLengthLong(), document);
+			}
+			finally
+			{
+				// Drops the socket rather than reading the rest of the body to reuse it
+				conn.disconnect();
+			}
+		}
+		throw new IOException("Too many redirects for " + url);
+	}
+
+	/**
+	 * @param charset the charset from the Content-Type header, or null to let Jsoup work it out from
+	 *                the meta tags
+	 */
+	private Document parse(HttpURLConnection conn, String url, String charset, boolean wholePage) throws IOException
+	{
+		InputStream in = conn.getInputStream();
+
+		if ("gzip".equalsIgnoreCase(conn.getContentEncoding()))
+		{
+			in = new GZIPInputStream(in);
+		}
+
+		byte[] data = new byte[8192];
+		int length = 0;
+		int read;
+
+		try
+		{
+			while (length < MAX_BODY_SIZE)
+			{
+				if (length == data.length)
+				{
+					data = Arrays.copyOf(data, Math.min(data.length * 2, MAX_BODY_SIZE));
+				}
+
+				if ((read = in.read(data, length, data.length - length)) == -1)
+				{
+					break;
+				}
+
+				int searchFrom = Math.max(0, length - HEAD_END.length + 1);
+
+				length += read;
+
+				if (!wholePage && indexOfIgnoreCase(data, searchFrom, length, HEAD_END) != -1)
+				{
+					break;
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+
+		return Jsoup.parse(new ByteArrayInputStream(data, 0, length), charset, url);
+	}
+
+	// The charset parameter of a split up Content-Type header, or null if there isn't a usable one.
+	static String getCharset(String[] contentTypeParts)
+	{
+		for (int i = 1; i < contentTypeParts.length; i++)
+		{
+			String part = contentTypeParts[i].trim();
+
+			if (!part.regionMatches(true, 0, "charset=", 0, 8))
+			{
+				continue;
+			}
+
+			String charset = part.substring(8).trim().replace("\"", "").replace("'", "");
+
+			try
+			{
+				return Charset.isSupported(charset) ? charset : null;
+			}
+			catch (IllegalCharsetNameException ex)
+			{
+				return null;
+			}
+		}
+		return null;
+	}
+
+	// The needle has to be lower case.
+	private int indexOfIgnoreCase(byte[] data, int from, int to, byte[] needle)
+	{
+		for (int i = from; i <= to - needle.length; i++)
+		{
+			int j = 0;
+
+			while (j < needle.length && Character.toLowerCase((char) data[i + j]) == needle[j])
+			{
+				j++;
+			}
+
+			if (j == needle.length)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean looksBinary(String url)
+	{
+		String path = url.toLowerCase();
+		int end = path.length();
+
+		for (char c : new char[] { '?', '#' })
+		{
+			int index = path.indexOf(c);
+
+			if (index != -1 && index < end)
+			{
+				end = index;
+			}
+		}
+
+		path = path.substring(0, end);
+
+		for (String extension : BINARY_EXTENSIONS)
+		{
+			if (path.endsWith(extension))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
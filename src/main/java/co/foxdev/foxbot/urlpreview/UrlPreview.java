@@ -0,0 +1,100 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import co.foxdev.foxbot.utils.Utils;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+/**
+ * What we found out about a URL. It doesn't depend on who posted the link, so one fetch can be
+ * shown to everyone who posted it.
+ */
+public class UrlPreview
+{
+	private final int status;
+	private final String statusMessage;
+	private final String contentType;
+	private final String size;
+	private final String title;
+	// Site specific information shown after the title instead of the content type and size
+	private final String details;
+
+	public UrlPreview(int status, String statusMessage, String contentType, String size, String title, String details)
+	{
+		this.status = status;
+		this.statusMessage = statusMessage;
+		this.contentType = contentType;
+		this.size = size;
+		this.title = title;
+		this.details = details;
+	}
+
+	public boolean isError()
+	{
+		return status != 200 && status != 302 && status != 301;
+	}
+
+	public String format(String nick)
+	{
+		if (isError())
+		{
+			return Utils.colourise(String.format("(%s's URL) &cError: &r%s %s ", Utils.munge(nick), status, statusMessage));
+		}
+
+		if (title == null)
+		{
+			return Utils.colourise(String.format("(%s's URL) &2Content Type: &r%s &2Size: &r%s", Utils.munge(nick), contentType, size));
+		}
+
+		if (details != null)
+		{
+			return Utils.colourise(String.format("(%s's URL) &2Title: &r%s %s", Utils.munge(nick), StringEscapeUtils.unescapeHtml4(title), details));
+		}
+		return Utils.colourise(String.format("(%s's URL) &2Title: &r%s &2Content Type: &r%s &2Size: &r%s", Utils.munge(nick), StringEscapeUtils.unescapeHtml4(title), contentType, size));
+	}
+
+	public int getStatus()
+	{
+		return status;
+	}
+
+	public String getStatusMessage()
+	{
+		return statusMessage;
+	}
+
+	public String getContentType()
+	{
+		return contentType;
+	}
+
+	public String getSize()
+	{
+		return size;
+	}
+
+	public String getTitle()
+	{
+		return title;
+	}
+
+	public String getDetails()
+	{
+		return details;
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.config.Config;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers recent previews so popular links aren't fetched every time they're posted. Errors and
+ * URLs that couldn't be fetched are remembered too, for a shorter time. Entries can be saved to the
+ * database so they survive a restart.
+ */
+public class UrlPreviewCache implements UrlPreviewCacheMBean
+{
+	private final FoxBot foxbot;
+
+	private final Map<String, CachedUrlPreview> cache;
+	private final int maxSize;
+	private final long ttl;
+	private final long negativeTtl;
+	private final boolean persist;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	public UrlPreviewCache(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		Config config = foxbot.getConfig();
+
+		maxSize = Math.max(1, config.getUrlPreviewCacheSize());
+		ttl = TimeUnit.SECONDS.toMillis(config.getUrlPreviewCacheTtl());
+		negativeTtl = TimeUnit.SECONDS.toMillis(config.getUrlPreviewNegativeTtl());
+		persist = config.getUrlPreviewPersistCache();
+		cache = new LinkedHashMap<String, CachedUrlPreview>(16, 0.75F, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedUrlPreview> eldest)
+			{
+				if (size() > maxSize)
+				{
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("co.foxdev.foxbot:type=UrlPreviewCache"));
+		}
+		catch (JMException ex)
+		{
+			foxbot.log(ex);
+		}
+	}
+
+	// Needs the database to be connected first.
+	public void load()
+	{
+		if (!persist)
+		{
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+
+		synchronized (cache)
+		{
+			for (CachedUrlPreview cached : foxbot.getDatabase().getUrlPreviews(now))
+			{
+				cache.put(cached.getUrl(), cached);
+			}
+			foxbot.log(String.format("Loaded %s cached URL previews", cache.size()));
+		}
+	}
+
+	// Returns null if the URL isn't cached. A cached URL that couldn't be fetched has a null preview.
+	public CachedUrlPreview get(String url)
+	{
+		String key = normalise(url);
+		long now = System.currentTimeMillis();
+
+		synchronized (cache)
+		{
+			CachedUrlPreview cached = cache.get(key);
+
+			if (cached != null && cached.isExpired(now))
+			{
+				cache.remove(key);
+				expirations.incrementAndGet();
+				cached = null;
+			}
+
+			if (cached == null)
+			{
+				misses.incrementAndGet();
+				return null;
+			}
+			hits.incrementAndGet();
+			return cached;
+		}
+	}
+
+	public void put(String url, UrlPreview preview)
+	{
+		boolean negative = preview == null || preview.isError();
+		CachedUrlPreview cached = new CachedUrlPreview(normalise(url), preview, System.currentTimeMillis() + (negative ? negativeTtl : ttl));
+
+		synchronized (cache)
+		{
+			cache.put(cached.getUrl(), cached);
+		}
+
+		// Anything longer won't fit in the url column
+		if (persist && !negative && cached.getUrl().length() <= 255)
+		{
+			foxbot.getDatabase().addUrlPreview(cached);
+		}
+	}
+
+	/**
+	 * Lowercases the scheme and host and drops default ports and fragments, so trivially different
+	 * ways of writing a URL share an entry.
+	 */
+	public static String normalise(String url)
+	{
+		try
+		{
+			URI uri = new URI(url);
+			String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase();
+			String host = uri.getHost() == null ? null : uri.getHost().toLowerCase();
+			int port = uri.getPort();
+
+			if (scheme == null || host == null)
+			{
+				return url;
+			}
+
+			if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443))
+			{
+				port = -1;
+			}
+
+			String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+			StringBuilder builder = new StringBuilder();
+
+			builder.append(scheme).append("://").append(host);
+
+			if (port != -1)
+			{
+				builder.append(':').append(port);
+			}
+
+			builder.append(path);
+
+			if (uri.getRawQuery() != null)
+			{
+				builder.append('?').append(uri.getRawQuery());
+			}
+			return builder.toString();
+		}
+		catch (URISyntaxException ex)
+		{
+			return url;
+		}
+	}
+
+	@Override
+	public int getSize()
+	{
+		synchronized (cache)
+		{
+			return cache.size();
+		}
+	}
+
+	@Override
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	@Override
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	@Override
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	@Override
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	@Override
+	public long getExpirations()
+	{
+		return expirations.get();
+	}
+
+	@Override
+	public void clear()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import java.net.URL;
+
+/**
+ * Builds a preview for the pages of one site. Public implementations with a no-argument constructor
+ * are registered automatically when the bot starts, the same way commands are.
+ */
+public interface UrlPreviewExtractor
+{
+	// The hosts this extractor handles, without www. Subdomains of them are handled too.
+	public String[] getHosts();
+
+	// Only called for URLs on one of the hosts above.
+	public boolean accepts(URL url);
+
+	// Whether the extractor needs the body of the page, rather than just the head.
+	public boolean needsWholePage();
+
+	// Only called for HTML pages that were fetched successfully.
+	public UrlPreview extract(FetchedPage page);
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the extractor for a URL with a map lookup per level of the host name, so adding extractors
+ * doesn't make routing any slower. Extractors are registered while the bot starts, before any
+ * previews are fetched, and never change after that.
+ */
+public class UrlPreviewRouter
+{
+	private final Map<String, List<UrlPreviewExtractor>> extractors = new HashMap<>();
+	private final UrlPreviewExtractor fallback;
+
+	public UrlPreviewRouter(UrlPreviewExtractor fallback)
+	{
+		this.fallback = fallback;
+	}
+
+	public void register(UrlPreviewExtractor extractor)
+	{
+		for (String host : extractor.getHosts())
+		{
+			List<UrlPreviewExtractor> list = extractors.get(host.toLowerCase());
+
+			if (list == null)
+			{
+				list = new ArrayList<>();
+				extractors.put(host.toLowerCase(), list);
+			}
+			list.add(extractor);
+		}
+	}
+
+	public UrlPreviewExtractor route(URL url)
+	{
+		String host = url.getHost().toLowerCase();
+
+		// www.youtube.com, then youtube.com, then com
+		while (!host.isEmpty())
+		{
+			List<UrlPreviewExtractor> list = extractors.get(host);
+
+			if (list != null)
+			{
+				for (UrlPreviewExtractor extractor : list)
+				{
+					if (extractor.accepts(url))
+					{
+						return extractor;
+					}
+				}
+			}
+
+			int dot = host.indexOf('.');
+
+			host = dot == -1 ? "" : host.substring(dot + 1);
+		}
+		return fallback;
+	}
+
+	public UrlPreviewExtractor getFallback()
+	{
+		return fallback;
+	}
+
+	public int size()
+	{
+		return extractors.size();
+	}
+}
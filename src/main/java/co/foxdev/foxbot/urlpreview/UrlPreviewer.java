@@ -0,0 +1,318 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.config.Config;
+import co.foxdev.foxbot.urlpreview.extractors.TitleExtractor;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Fetches URL previews off the IRC thread. If the same URL is posted again while it's still being
+ * fetched, the second poster waits on the first fetch instead of starting another one. Each host
+ * can only have a few fetches running at once, anything over that is dropped.
+ */
+public class UrlPreviewer
+{
+	private final FoxBot foxbot;
+
+	private final ThreadPoolExecutor executor;
+	private final UrlPreviewCache cache;
+	private final PageFetcher fetcher = new PageFetcher();
+	private final UrlPreviewRouter router = new UrlPreviewRouter(new TitleExtractor());
+	private final ConcurrentMap<String, Fetch> inFlight = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+	private final int maxPerHost;
+
+	public UrlPreviewer(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		Config config = foxbot.getConfig();
+		int threads = Math.max(1, config.getUrlPreviewThreads());
+
+		maxPerHost = Math.max(1, config.getUrlPreviewMaxPerHost());
+		cache = new UrlPreviewCache(foxbot);
+		executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(Math.max(1, config.getUrlPreviewQueueSize())), new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "FoxBot-UrlPreview-" + count.incrementAndGet());
+
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	public void preview(String url, Channel channel, User sender)
+	{
+		CachedUrlPreview cached = cache.get(url);
+
+		if (cached != null)
+		{
+			if (cached.getPreview() != null)
+			{
+				channel.send().message(cached.getPreview().format(sender.getNick()));
+			}
+			return;
+		}
+
+		Waiter waiter = new Waiter(channel, sender.getNick());
+		Fetch fetch = new Fetch(url);
+		Fetch existing = inFlight.putIfAbsent(url, fetch);
+
+		// Someone else is already fetching this, wait for them
+		if (existing != null && existing.addWaiter(waiter))
+		{
+			return;
+		}
+
+		if (existing != null)
+		{
+			// That fetch finished while we were looking at it, start our own
+			if (!inFlight.replace(url, existing, fetch))
+			{
+				preview(url, channel, sender);
+				return;
+			}
+		}
+
+		fetch.addWaiter(waiter);
+
+		String host = getHost(url);
+
+		if (host == null)
+		{
+			inFlight.remove(url, fetch);
+			return;
+		}
+
+		Semaphore permits = getPermits(host);
+
+		if (!permits.tryAcquire())
+		{
+			inFlight.remove(url, fetch);
+			foxbot.log(Level.WARNING, String.format("Dropped preview of %s (%s fetches already running for %s)", url, maxPerHost, host));
+			return;
+		}
+
+		try
+		{
+			executor.execute(new FetchTask(fetch, permits));
+		}
+		catch (RejectedExecutionException ex)
+		{
+			permits.release();
+			inFlight.remove(url, fetch);
+			foxbot.log(Level.WARNING, String.format("Dropped preview of %s (too many previews queued)", url));
+		}
+	}
+
+	// Returns null if the URL can't be previewed.
+	public UrlPreview fetch(String url)
+	{
+		try
+		{
+			UrlPreviewExtractor extractor = router.route(new URL(url));
+			FetchedPage page = fetcher.fetch(url, extractor.needsWholePage());
+			int status = page.getStatus();
+
+			if ((status != 200 && status != 302 && status != 301) || page.getDocument() == null)
+			{
+				return new UrlPreview(status, page.getStatusMessage(), page.getContentType(), page.getSize(), null, null);
+			}
+
+			try
+			{
+				return extractor.extract(page);
+			}
+			catch (RuntimeException ex)
+			{
+				if (extractor == router.getFallback())
+				{
+					throw ex;
+				}
+
+				// Scraped selectors break whenever a site changes its layout, the title will do
+				foxbot.log(Level.WARNING, String.format("%s failed on %s, falling back to the page title", extractor.getClass().getSimpleName(), url));
+				return router.getFallback().extract(page);
+			}
+		}
+		catch (IllegalArgumentException ignored)
+		{
+
+		}
+		catch (Exception ex)
+		{
+			foxbot.log(ex);
+		}
+		return null;
+	}
+
+	private String getHost(String url)
+	{
+		try
+		{
+			String host = new URL(url).getHost();
+
+			return host.isEmpty() ? null : host.toLowerCase();
+		}
+		catch (MalformedURLException ex)
+		{
+			return null;
+		}
+	}
+
+	private Semaphore getPermits(String host)
+	{
+		Semaphore permits = hostPermits.get(host);
+
+		if (permits == null)
+		{
+			Semaphore created = new Semaphore(maxPerHost);
+
+			permits = hostPermits.putIfAbsent(host, created);
+
+			if (permits == null)
+			{
+				permits = created;
+			}
+		}
+		return permits;
+	}
+
+	public UrlPreviewRouter getRouter()
+	{
+		return router;
+	}
+
+	public UrlPreviewCache getCache()
+	{
+		return cache;
+	}
+
+	public int getPendingCount()
+	{
+		return inFlight.size();
+	}
+
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	private class FetchTask implements Runnable
+	{
+		private final Fetch fetch;
+		private final Semaphore permits;
+
+		private FetchTask(Fetch fetch, Semaphore permits)
+		{
+			this.fetch = fetch;
+			this.permits = permits;
+		}
+
+		@Override
+		public void run()
+		{
+			UrlPreview preview = null;
+
+			try
+			{
+				preview = fetch(fetch.url);
+				cache.put(fetch.url, preview);
+			}
+			finally
+			{
+				permits.release();
+				inFlight.remove(fetch.url, fetch);
+
+				// Nobody can join the fetch after this, so the list is final
+				for (Waiter waiter : fetch.complete())
+				{
+					if (preview != null)
+					{
+						waiter.channel.send().message(preview.format(waiter.nick));
+					}
+				}
+			}
+		}
+	}
+
+	private static class Fetch
+	{
+		private final String url;
+		private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+		private boolean complete;
+
+		private Fetch(String url)
+		{
+			this.url = url;
+		}
+
+		private synchronized boolean addWaiter(Waiter waiter)
+		{
+			if (complete)
+			{
+				return false;
+			}
+
+			// The same channel only needs to see the preview once
+			for (Waiter existing : waiters)
+			{
+				if (existing.channel.equals(waiter.channel))
+				{
+					return true;
+				}
+			}
+			waiters.add(waiter);
+			return true;
+		}
+
+		private synchronized List<Waiter> complete()
+		{
+			complete = true;
+			return waiters;
+		}
+	}
+
+	private static class Waiter
+	{
+		private final Channel channel;
+		private final String nick;
+
+		private Waiter(Channel channel, String nick)
+		{
+			this.channel = channel;
+			this.nick = nick;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds http and https URLs in a message in one pass. Most messages don't contain a URL at all,
+ * so those are turned away without allocating anything.
+ */
+public class UrlScanner
+{
+	// Characters that can appear in a URL, and the ones it can end with, from the old URL_PATTERN
+	private static final boolean[] URL_CHARS = table("-+&@#/%?=~_|!:,.;");
+	private static final boolean[] END_CHARS = table("-+&@#/%=~_|");
+
+	private static boolean[] table(String symbols)
+	{
+		boolean[] table = new boolean[128];
+
+		for (char c = 'a'; c <= 'z'; c++)
+		{
+			table[c] = true;
+			table[Character.toUpperCase(c)] = true;
+		}
+
+		for (char c = '0'; c <= '9'; c++)
+		{
+			table[c] = true;
+		}
+
+		for (char c : symbols.toCharArray())
+		{
+			table[c] = true;
+		}
+		return table;
+	}
+
+	/**
+	 * Returns up to max distinct URLs from the message, in the order they appear.
+	 */
+	public static List<String> find(String message, int max)
+	{
+		List<String> urls = null;
+		int length = message.length();
+		int from = 0;
+		int start;
+
+		while (max > 0 && (start = message.indexOf("http", from)) != -1)
+		{
+			int pos = start + 4;
+
+			if (pos < length && message.charAt(pos) == 's')
+			{
+				pos++;
+			}
+
+			if (!message.startsWith("://", pos))
+			{
+				from = start + 4;
+				continue;
+			}
+
+			pos += 3;
+
+			int end = pos;
+			int lastEnd = -1;
+
+			while (end < length)
+			{
+				char c = message.charAt(end);
+
+				if (c >= 128 || !URL_CHARS[c])
+				{
+					break;
+				}
+
+				end++;
+
+				if (END_CHARS[c])
+				{
+					lastEnd = end;
+				}
+			}
+
+			if (lastEnd > pos)
+			{
+				String url = message.substring(start, lastEnd);
+
+				if (urls == null)
+				{
+					urls = new ArrayList<>(Math.min(max, 4));
+				}
+
+				if (!urls.contains(url))
+				{
+					urls.add(url);
+					max--;
+				}
+			}
+			// Nothing before end can start another URL, so we never look at a character twice
+			from = Math.max(end, start + 4);
+		}
+		return urls == null ? Collections.<String>emptyList() : urls;
+	}
+}
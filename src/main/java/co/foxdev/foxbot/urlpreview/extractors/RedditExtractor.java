@@ -0,0 +1,62 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview.extractors;
+
+import co.foxdev.foxbot.urlpreview.FetchedPage;
+import co.foxdev.foxbot.urlpreview.UrlPreview;
+import co.foxdev.foxbot.urlpreview.UrlPreviewExtractor;
+import org.jsoup.nodes.Document;
+
+import java.net.URL;
+import java.util.regex.Pattern;
+
+public class RedditExtractor implements UrlPreviewExtractor
+{
+	private static final Pattern COMMENTS_PATH = Pattern.compile("^/r/[^/]+/comments/.*");
+
+	@Override
+	public String[] getHosts()
+	{
+		return new String[] { "reddit.com" };
+	}
+
+	@Override
+	public boolean accepts(URL url)
+	{
+		return COMMENTS_PATH.matcher(url.getPath()).matches();
+	}
+
+	@Override
+	public boolean needsWholePage()
+	{
+		return true;
+	}
+
+	@Override
+	public UrlPreview extract(FetchedPage page)
+	{
+		Document doc = page.getDocument();
+		String title = doc.title() == null || doc.title().isEmpty() ? "No title found" : doc.title();
+		String poster = doc.select("p.tagline").select("a.author").text().split(" ")[0];
+		String comments = doc.select("a.comments").first().text().split(" ")[0];
+		String likes = doc.select("span.upvotes").first().text().split(" ")[0];
+		String dislikes = doc.select("span.downvotes").first().text().split(" ")[0];
+
+		return new UrlPreview(page.getStatus(), page.getStatusMessage(), page.getContentType(), page.getSize(), title, String.format("&2Poster: &r%s &2Comments: &r%s &2Rating: &6%s&r/&9%s", poster, comments, likes, dislikes));
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview.extractors;
+
+import co.foxdev.foxbot.urlpreview.FetchedPage;
+import co.foxdev.foxbot.urlpreview.UrlPreview;
+import co.foxdev.foxbot.urlpreview.UrlPreviewExtractor;
+import org.jsoup.nodes.Document;
+
+import java.net.URL;
+
+/**
+ * Used for any site without its own extractor, and when a site's own extractor fails.
+ */
+public class TitleExtractor implements UrlPreviewExtractor
+{
+	@Override
+	public String[] getHosts()
+	{
+		return new String[0];
+	}
+
+	@Override
+	public boolean accepts(URL url)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean needsWholePage()
+	{
+		return false;
+	}
+
+	@Override
+	public UrlPreview extract(FetchedPage page)
+	{
+		Document doc = page.getDocument();
+		String title = doc.title() == null || doc.title().isEmpty() ? "No title found" : doc.title();
+
+		return new UrlPreview(page.getStatus(), page.getStatusMessage(), page.getContentType(), page.getSize(), title, null);
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview.extractors;
+
+import co.foxdev.foxbot.urlpreview.FetchedPage;
+import co.foxdev.foxbot.urlpreview.UrlPreview;
+import co.foxdev.foxbot.urlpreview.UrlPreviewExtractor;
+import org.jsoup.nodes.Document;
+
+import java.net.URL;
+
+public class YoutubeExtractor implements UrlPreviewExtractor
+{
+	@Override
+	public String[] getHosts()
+	{
+		return new String[] { "youtube.com" };
+	}
+
+	@Override
+	public boolean accepts(URL url)
+	{
+		return url.getPath().startsWith("/watch");
+	}
+
+	@Override
+	public boolean needsWholePage()
+	{
+		return true;
+	}
+
+	@Override
+	public UrlPreview extract(FetchedPage page)
+	{
+		Document doc = page.getDocument();
+		String title = doc.select("span#eow-title").first().text();
+		String views = doc.select("span.watch-view-count").first().text();
+		String likes = doc.select("span.likes-count").first().text();
+		String dislikes = doc.select("span.dislikes-count").first().text();
+		String uploader = doc.select("a.g-hovercard.yt-uix-sessionlink.yt-user-name").first().text();
+
+		return new UrlPreview(page.getStatus(), page.getStatusMessage(), page.getContentType(), page.getSize(), title, String.format("&2Uploader: &r%s &2Views: &r%s &2Rating: &a%s&r/&c%s", uploader, views, likes, dislikes));
+	}
+}
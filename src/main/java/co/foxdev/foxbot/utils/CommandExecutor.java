@@ -0,0 +1,242 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.CommandArgs;
+import co.foxdev.foxbot.config.Config;
+import co.foxdev.foxbot.metrics.Counter;
+import co.foxdev.foxbot.metrics.Histogram;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+public class CommandExecutor
+{
+	private final FoxBot foxbot;
+
+	private final ExecutorService executor;
+	private final ConcurrentMap<String, Semaphore> commandPermits = new ConcurrentHashMap<>();
+	private final Semaphore queuePermits;
+	private final int queueCapacity;
+	private final int maxPerCommand;
+	private final String rejectionPolicy;
+	private final ConcurrentMap<String, Histogram> durations = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Counter> errors = new ConcurrentHashMap<>();
+	private final Counter rejected;
+
+	public CommandExecutor(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		Config config = foxbot.getConfig();
+		int threads = Math.max(1, config.getExecutorThreads());
+
+		queueCapacity = threads + Math.max(0, config.getExecutorQueueSize());
+		queuePermits = new Semaphore(queueCapacity);
+		maxPerCommand = Math.max(1, config.getExecutorMaxPerCommand());
+		rejectionPolicy = config.getExecutorRejectionPolicy();
+		executor = createExecutor(config.getExecutorMode(), threads);
+		rejected = foxbot.getMetrics().counter("foxbot_commands_rejected_total", "Commands rejected because the executor was busy");
+	}
+
+	private ExecutorService createExecutor(String mode, int threads)
+	{
+		if (mode.equalsIgnoreCase("virtual"))
+		{
+			try
+			{
+				// Only exists on Java 21+, so it has to be looked up at runtime
+				ExecutorService service = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+
+				foxbot.log("Using virtual threads for command execution");
+				return service;
+			}
+			catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException ex)
+			{
+				foxbot.warn("Virtual threads are not supported by this JVM, falling back to a thread pool for command execution");
+			}
+		}
+
+		foxbot.log(String.format("Using a pool of %s threads for command execution", threads));
+
+		return Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "FoxBot-Command-" + count.incrementAndGet());
+
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public void execute(final Command command, final MessageEvent event, final CommandArgs args)
+	{
+		if (!command.isBlocking())
+		{
+			run(command, event, args);
+			return;
+		}
+
+		final Semaphore permits = getPermits(command);
+
+		if (!permits.tryAcquire())
+		{
+			reject(command, event, args, String.format("%s copies already running", maxPerCommand));
+			return;
+		}
+
+		if (!queuePermits.tryAcquire())
+		{
+			permits.release();
+			reject(command, event, args, String.format("%s commands already queued", queueCapacity));
+			return;
+		}
+
+		try
+		{
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						CommandExecutor.this.run(command, event, args);
+					}
+					finally
+					{
+						queuePermits.release();
+						permits.release();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			queuePermits.release();
+			permits.release();
+			reject(command, event, args, "executor is shut down");
+		}
+	}
+
+	private void run(Command command, MessageEvent event, CommandArgs args)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			command.execute(event, args);
+		}
+		catch (Exception ex)
+		{
+			getErrors(command).increment();
+			foxbot.sendNotice(event.getUser(), "An internal error occurred whilst executing this command, please alert a bot admin.");
+			foxbot.log("Error dispatching command: " + command.getName());
+			foxbot.log(ex);
+		}
+		finally
+		{
+			getDuration(command).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	private Histogram getDuration(Command command)
+	{
+		Histogram histogram = durations.get(command.getName());
+
+		if (histogram == null)
+		{
+			histogram = foxbot.getMetrics().histogram("foxbot_command_duration_milliseconds", "Time taken to run commands", "command", command.getName());
+			durations.put(command.getName(), histogram);
+		}
+		return histogram;
+	}
+
+	private Counter getErrors(Command command)
+	{
+		Counter counter = errors.get(command.getName());
+
+		if (counter == null)
+		{
+			counter = foxbot.getMetrics().counter("foxbot_command_errors_total", "Commands that threw an exception", "command", command.getName());
+			errors.put(command.getName(), counter);
+		}
+		return counter;
+	}
+
+	private void reject(Command command, MessageEvent event, CommandArgs args, String reason)
+	{
+		User sender = event.getUser();
+
+		rejected.increment();
+
+		switch (rejectionPolicy.toLowerCase())
+		{
+			case "inline":
+				foxbot.log(Level.WARNING, String.format("Running command '%s' used by %s inline (%s)", command.getName(), sender.getNick(), reason));
+				run(command, event, args);
+				break;
+			case "drop":
+				foxbot.log(Level.WARNING, String.format("Dropped command '%s' used by %s (%s)", command.getName(), sender.getNick(), reason));
+				break;
+			default:
+				foxbot.log(Level.WARNING, String.format("Rejected command '%s' used by %s (%s)", command.getName(), sender.getNick(), reason));
+				foxbot.sendNotice(sender, "I'm a bit busy right now, please try that again in a moment.");
+				break;
+		}
+	}
+
+	private Semaphore getPermits(Command command)
+	{
+		Semaphore permits = commandPermits.get(command.getName());
+
+		if (permits == null)
+		{
+			Semaphore created = new Semaphore(maxPerCommand);
+
+			permits = commandPermits.putIfAbsent(command.getName(), created);
+
+			if (permits == null)
+			{
+				permits = created;
+			}
+		}
+		return permits;
+	}
+
+	public int getPendingCount()
+	{
+		return queueCapacity - queuePermits.availablePermits();
+	}
+
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+}
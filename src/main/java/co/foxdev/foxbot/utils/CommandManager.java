@@ -19,10 +19,12 @@ package co.foxdev.foxbot.utils;
 
 import co.foxdev.foxbot.FoxBot;
 import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.CommandArgs;
+import co.foxdev.foxbot.customcommands.CustomCommandStore;
+import co.foxdev.foxbot.metrics.Counter;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
-import java.io.*;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
@@ -31,39 +33,60 @@ public class CommandManager
 {
     private final FoxBot foxbot;
 
-    private static final Pattern ARGS_SPLIT = Pattern.compile(" ");
     private static final Pattern LINES_SPLIT = Pattern.compile("\\\\n");
-    private final Map<String, Command> commandMap = new HashMap<>();
+    private volatile CommandRegistry registry = new CommandRegistry(Collections.<Command>emptyList());
+    private final CommandExecutor commandExecutor;
+    private final CommandRateLimiter rateLimiter;
+    private final CustomCommandStore customCommandStore;
+    private final Counter customDispatches;
+    private final Counter unknownDispatches;
+    private final Counter deniedDispatches;
+    private final Counter limitedDispatches;
+    private final Counter executedDispatches;
 
     public CommandManager(FoxBot foxbot)
     {
         this.foxbot = foxbot;
+        this.commandExecutor = new CommandExecutor(foxbot);
+        this.rateLimiter = new CommandRateLimiter(foxbot);
+        this.customCommandStore = new CustomCommandStore(foxbot);
+        this.customDispatches = foxbot.getMetrics().counter("foxbot_dispatches_total", "Command lines seen, by what happened to them", "result", "custom");
+        this.unknownDispatches = foxbot.getMetrics().counter("foxbot_dispatches_total", "Command lines seen, by what happened to them", "result", "unknown");
+        this.deniedDispatches = foxbot.getMetrics().counter("foxbot_dispatches_total", "Command lines seen, by what happened to them", "result", "denied");
+        this.limitedDispatches = foxbot.getMetrics().counter("foxbot_dispatches_total", "Command lines seen, by what happened to them", "result", "limited");
+        this.executedDispatches = foxbot.getMetrics().counter("foxbot_dispatches_total", "Command lines seen, by what happened to them", "result", "executed");
     }
 
     public void registerCommand(Command command)
     {
-        commandMap.put(command.getName().toLowerCase(), command);
+        registerCommands(Collections.singletonList(command));
+    }
 
-        for (String alias : command.getAliases())
-        {
-            commandMap.put(alias.toLowerCase(), command);
-        }
+    // Swaps in a new registry with these added, so register everything at once where possible.
+    public synchronized void registerCommands(Collection<Command> commands)
+    {
+        registry = registry.with(commands);
     }
 
-    public boolean dispatchCommand(MessageEvent event, String commandLine)
+    public boolean dispatchCommand(MessageEvent event, CommandArgs args)
     {
-        String[] split = ARGS_SPLIT.split(commandLine);
         User sender = event.getUser();
-        String commandName = split[0].toLowerCase();
-        Command command = commandMap.get(commandName);
+        String commandName = args.getName();
 
-	    if (runCustomCommand(event.getChannel().getName(), commandName))
+	    String custom = getCustomCommand(event.getChannel().getName(), commandName);
+
+	    if (custom != null)
 	    {
-		    return true;
+		    return runCustomCommand(event, commandName, custom);
 	    }
 
+        CommandRegistry commands = registry;
+        Command command = foxbot.getConfig().getMatchCommandPrefixes() ? commands.match(commandName) : commands.get(commandName);
+
 	    if (command == null)
 	    {
+		    unknownDispatches.increment();
+		    suggestCommand(sender, commands, commandName);
 		    return false;
 	    }
 
@@ -77,82 +100,120 @@ public class CommandManager
             {
 	            foxbot.log(Level.WARNING, String.format("Permission denied for command '%s' used by %s", command.getName(), sender.getNick()));
                 foxbot.sendNotice(sender, "You do not have permission to do that!");
+                deniedDispatches.increment();
                 return false;
             }
         }
 
-        String[] args = Arrays.copyOfRange(split, 1, split.length);
+        CommandRateLimiter.Result limited = rateLimiter.tryAcquire(command, sender, event.getChannel());
 
-        try
+        if (limited != CommandRateLimiter.Result.ALLOWED)
         {
-            command.execute(event, args);
+            rateLimited(sender, command.getName(), limited);
+            return false;
         }
-        catch (Exception ex)
+
+        executedDispatches.increment();
+        commandExecutor.execute(command, event, args);
+        return true;
+    }
+
+    private void suggestCommand(User sender, CommandRegistry commands, String commandName)
+    {
+        if (!foxbot.getConfig().getSuggestCommands() || commandName.isEmpty())
         {
-            foxbot.sendNotice(sender, "An internal error occurred whilst executing this command, please alert a bot admin.");
-	        foxbot.log("Error dispatching command: " + command.getName());
-	        foxbot.log(ex);
+            return;
+        }
+
+        String suggestion = commands.suggest(commandName);
+
+        if (suggestion != null)
+        {
+            foxbot.sendNotice(sender, String.format("Unknown command '%s', did you mean '%s%s'?", commandName, foxbot.getConfig().getCommandPrefix(), suggestion));
         }
-        return true;
     }
 
-    private boolean runCustomCommand(String channel, String command)
+    private void rateLimited(User sender, String commandName, CommandRateLimiter.Result limited)
+    {
+        // Only say so once, or the notices would be a flood of their own
+        if (limited == CommandRateLimiter.Result.LIMITED_FIRST)
+        {
+            foxbot.log(Level.WARNING, String.format("Rate limited command '%s' used by %s", commandName, sender.getNick()));
+            foxbot.sendNotice(sender, String.format("Slow down! You're using %s%s too often, try again shortly.", foxbot.getConfig().getCommandPrefix(), commandName));
+        }
+        limitedDispatches.increment();
+    }
+
+    // Returns the text of the custom command, or null if the channel doesn't have one by that name.
+    private String getCustomCommand(String channel, String command)
     {
 	    if (command == null || command.isEmpty())
 	    {
-		    return false;
+		    return null;
 	    }
 
 	    // Prevent filesystem access
 	    if (command.contains(".") || command.contains("/") || command.contains("\\\\") || command.contains("~"))
 	    {
-		    return false;
+		    return null;
 	    }
 
 	    if (channel.contains(".") || channel.contains("/") || channel.contains("\\\\") || channel.contains("~"))
 	    {
-		    return false;
+		    return null;
 	    }
 
-        File file = new File(String.format("data/custcmds/%s/%s", channel.substring(1), command));
-        StringBuilder message = new StringBuilder();
+        String message = customCommandStore.get(channel, command);
 
-        if (file.exists())
-        {
-            try
-            {
-                BufferedReader reader = new BufferedReader(new FileReader(file));
+        return message == null || message.isEmpty() ? null : message;
+    }
 
-                String line;
+    private boolean runCustomCommand(MessageEvent event, String command, String message)
+    {
+        // Custom commands are stored under lower case names
+        command = command.toLowerCase();
 
-                while ((line = reader.readLine()) != null)
-                {
-                    message.append(line);
-                }
-                reader.close();
-            }
-            catch (IOException ex)
-            {
-                foxbot.log(ex);
-                return false;
-            }
+        CommandRateLimiter.Result limited = rateLimiter.tryAcquireCustom(event.getUser(), event.getChannel());
 
-            if (!message.toString().isEmpty())
-            {
-                String[] lines = LINES_SPLIT.split(message.toString());
+        if (limited != CommandRateLimiter.Result.ALLOWED)
+        {
+            rateLimited(event.getUser(), command, limited);
+            return false;
+        }
 
-                for (int i = 0; i < lines.length && i < 3; i++)
-                {
-	                foxbot.getChannel(channel).send().message(foxbot.getConfig().getCommandPrefix() + command + ": " + lines[i]);
-                }
-                return true;
-            }
+        String[] lines = LINES_SPLIT.split(message);
+
+        for (int i = 0; i < lines.length && i < 3; i++)
+        {
+            event.getChannel().send().message(foxbot.getConfig().getCommandPrefix() + command + ": " + lines[i]);
         }
-        return false;
+        customDispatches.increment();
+        return true;
     }
 
+	// Each command once, sorted by name.
 	public Collection<Command> getCommands()
 	{
-		return commandMap.values();
+		return registry.getCommands();
+	}
+
+	public CommandRegistry getRegistry()
+	{
+		return registry;
+	}
+
+	public CommandRateLimiter getRateLimiter()
+	{
+		return rateLimiter;
+	}
+
+	public CommandExecutor getCommandExecutor()
+	{
+		return commandExecutor;
+	}
+
+	public CustomCommandStore getCustomCommandStore()
+	{
+		return customCommandStore;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,358 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.config.yamlconfig.file.FileConfiguration;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Token buckets for each command per user and per channel, so nobody can make the bot do unlimited
+ * work or talk without end. Limits come from rate-limits in config.yml, looked up by command name,
+ * then permission node, then the defaults. Custom commands all share one bucket, limited by
+ * rate-limits.custom or the defaults. Users with ratelimit.exempt are never limited.
+ *
+ * Each bucket is a single long holding the time it was last topped up, whether the user has been told
+ * they're limited, and the tokens left in thousandths, updated with compare and set. A bucket that
+ * has been idle long enough to fill back up is the same as no bucket at all, so those are dropped.
+ */
+public class CommandRateLimiter
+{
+	public enum Result
+	{
+		ALLOWED,
+		// Limited, and the user hasn't been told since they were last allowed
+		LIMITED_FIRST,
+		LIMITED
+	}
+
+	private static final String EXEMPT_PERMISSION = "ratelimit.exempt";
+	private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+	// Bucket name for custom commands, which can't clash with a built-in command since those have no colons
+	private static final String CUSTOM_BUCKET = "custom:";
+
+	private static final long COST = 1000;
+	private static final int TOKEN_BITS = 20;
+	private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+	static final long NOTIFIED = 1L << TOKEN_BITS;
+	private static final int TIME_SHIFT = TOKEN_BITS + 1;
+
+	private final FoxBot foxbot;
+
+	private final long start = System.nanoTime();
+	// Command name and user or channel to bucket state
+	private final ConcurrentMap<String, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, AtomicLong> channelBuckets = new ConcurrentHashMap<>();
+	// User limit then channel limit for each command, looked up the first time it's used
+	private final ConcurrentMap<Command, RateLimit[]> limits = new ConcurrentHashMap<>();
+	private volatile RateLimit[] customLimits;
+	private final AtomicLong nextSweep = new AtomicLong(SWEEP_INTERVAL);
+	// Buckets idle for this long are full whatever their limit
+	private volatile long longestPeriod;
+
+	public CommandRateLimiter(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	public Result tryAcquire(Command command, User user, Channel channel)
+	{
+		if (!foxbot.getConfig().getRateLimitsEnabled())
+		{
+			return Result.ALLOWED;
+		}
+		return tryAcquire(command.getName(), getLimits(command), user, channel);
+	}
+
+	// Every custom command takes from the same buckets, so switching between them doesn't get around the limit.
+	public Result tryAcquireCustom(User user, Channel channel)
+	{
+		if (!foxbot.getConfig().getRateLimitsEnabled())
+		{
+			return Result.ALLOWED;
+		}
+		return tryAcquire(CUSTOM_BUCKET, getCustomLimits(), user, channel);
+	}
+
+	private Result tryAcquire(String name, RateLimit[] commandLimits, User user, Channel channel)
+	{
+		RateLimit userLimit = commandLimits[0];
+		RateLimit channelLimit = commandLimits[1];
+
+		if (userLimit.isNone() && channelLimit.isNone())
+		{
+			return Result.ALLOWED;
+		}
+
+		if (foxbot.getPermissionManager().userHasQuietPermission(user, EXEMPT_PERMISSION))
+		{
+			return Result.ALLOWED;
+		}
+
+		long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		sweepIfDue(now);
+
+		// Hostmask matching gives the host, which follows people through nick changes
+		String userKey = name + ' ' + (user.getHostmask() != null ? user.getHostmask() : user.getNick());
+		AtomicLong userBucket = userLimit.isNone() ? null : getBucket(userBuckets, userKey, userLimit, now);
+
+		if (userBucket != null)
+		{
+			Result result = take(userBucket, userLimit, now);
+
+			if (result != Result.ALLOWED)
+			{
+				return result;
+			}
+		}
+
+		if (!channelLimit.isNone())
+		{
+			Result result = take(getBucket(channelBuckets, name + ' ' + channel.getName(), channelLimit, now), channelLimit, now);
+
+			if (result != Result.ALLOWED)
+			{
+				if (userBucket != null)
+				{
+					refund(userBucket, userLimit);
+				}
+				return result;
+			}
+		}
+		return Result.ALLOWED;
+	}
+
+	private AtomicLong getBucket(ConcurrentMap<String, AtomicLong> buckets, String key, RateLimit limit, long now)
+	{
+		AtomicLong bucket = buckets.get(key);
+
+		if (bucket == null)
+		{
+			AtomicLong created = new AtomicLong(pack(now, capacity(limit), false));
+
+			bucket = buckets.putIfAbsent(key, created);
+
+			if (bucket == null)
+			{
+				bucket = created;
+			}
+		}
+		return bucket;
+	}
+
+	static Result take(AtomicLong bucket, RateLimit limit, long now)
+	{
+		while (true)
+		{
+			long state = bucket.get();
+			long capacity = capacity(limit);
+			long last = state >>> TIME_SHIFT;
+			long tokens = Math.min(state & TOKEN_MASK, capacity);
+			long elapsed = Math.max(0, now - last);
+			long time = now;
+
+			if (elapsed < limit.getPeriodMillis())
+			{
+				long gained = elapsed * capacity / limit.getPeriodMillis();
+
+				if (tokens + gained < capacity)
+				{
+					tokens += gained;
+					// Only move the clock on as far as the tokens we added, or frequent attempts would never refill anything
+					time = last + gained * limit.getPeriodMillis() / capacity;
+				}
+				else
+				{
+					tokens = capacity;
+				}
+			}
+			else
+			{
+				tokens = capacity;
+			}
+
+			if (tokens >= COST)
+			{
+				if (bucket.compareAndSet(state, pack(time, tokens - COST, false)))
+				{
+					return Result.ALLOWED;
+				}
+				continue;
+			}
+
+			boolean notified = (state & NOTIFIED) != 0;
+
+			if (bucket.compareAndSet(state, pack(time, tokens, true)))
+			{
+				return notified ? Result.LIMITED : Result.LIMITED_FIRST;
+			}
+		}
+	}
+
+	static void refund(AtomicLong bucket, RateLimit limit)
+	{
+		while (true)
+		{
+			long state = bucket.get();
+			long tokens = Math.min((state & TOKEN_MASK) + COST, capacity(limit));
+
+			if (bucket.compareAndSet(state, (state & ~TOKEN_MASK) | tokens))
+			{
+				return;
+			}
+		}
+	}
+
+	// One thread at a time drops buckets that have filled back up. Anyone still holding one gets a free use at worst.
+	private void sweepIfDue(long now)
+	{
+		long due = nextSweep.get();
+
+		if (now < due || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL))
+		{
+			return;
+		}
+
+		sweep(userBuckets, now);
+		sweep(channelBuckets, now);
+	}
+
+	private void sweep(ConcurrentMap<String, AtomicLong> buckets, long now)
+	{
+		long idle = longestPeriod;
+
+		for (Iterator<Map.Entry<String, AtomicLong>> it = buckets.entrySet().iterator(); it.hasNext(); )
+		{
+			Map.Entry<String, AtomicLong> entry = it.next();
+
+			if (now - (entry.getValue().get() >>> TIME_SHIFT) >= idle)
+			{
+				buckets.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private RateLimit[] getLimits(Command command)
+	{
+		RateLimit[] commandLimits = limits.get(command);
+
+		if (commandLimits == null)
+		{
+			commandLimits = new RateLimit[] { resolve(command, "user"), resolve(command, "channel") };
+			limits.put(command, commandLimits);
+			updateLongestPeriod(commandLimits);
+		}
+		return commandLimits;
+	}
+
+	private RateLimit[] getCustomLimits()
+	{
+		RateLimit[] custom = customLimits;
+
+		if (custom == null)
+		{
+			custom = new RateLimit[] { resolveCustom("user"), resolveCustom("channel") };
+			customLimits = custom;
+			updateLongestPeriod(custom);
+		}
+		return custom;
+	}
+
+	private void updateLongestPeriod(RateLimit[] commandLimits)
+	{
+		for (RateLimit limit : commandLimits)
+		{
+			longestPeriod = Math.max(longestPeriod, limit.getPeriodMillis());
+		}
+	}
+
+	private RateLimit resolve(Command command, String scope)
+	{
+		RateLimit limit = read("rate-limits.commands." + command.getName() + "." + scope);
+
+		if (limit == null && command.getPermission() != null && !command.getPermission().isEmpty())
+		{
+			limit = read("rate-limits.permissions." + command.getPermission() + "." + scope);
+		}
+
+		if (limit == null)
+		{
+			limit = read("rate-limits.default." + scope);
+		}
+		return limit == null ? RateLimit.NONE : limit;
+	}
+
+	private RateLimit resolveCustom(String scope)
+	{
+		RateLimit limit = read("rate-limits.custom." + scope);
+
+		if (limit == null)
+		{
+			limit = read("rate-limits.default." + scope);
+		}
+		return limit == null ? RateLimit.NONE : limit;
+	}
+
+	private RateLimit read(String path)
+	{
+		FileConfiguration config = foxbot.getConfig().getBotConfig();
+
+		try
+		{
+			return RateLimit.parse(config.getString(path));
+		}
+		catch (IllegalArgumentException ex)
+		{
+			foxbot.log(Level.WARNING, String.format("Ignoring %s: %s", path, ex.getMessage()));
+			return null;
+		}
+	}
+
+	// Forgets the limits looked up so far, so config changes apply to the next command.
+	public void reload()
+	{
+		limits.clear();
+		customLimits = null;
+	}
+
+	public int getBucketCount()
+	{
+		return userBuckets.size() + channelBuckets.size();
+	}
+
+	static long capacity(RateLimit limit)
+	{
+		return limit.getCount() * COST;
+	}
+
+	static long pack(long time, long tokens, boolean notified)
+	{
+		return time << TIME_SHIFT | (notified ? NOTIFIED : 0) | tokens;
+	}
+}
@@ -0,0 +1,309 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.commands.Command;
+
+import java.util.*;
+
+/**
+ * Every registered command, looked up by name or alias in a case insensitive trie. Built in one go and
+ * never changed afterwards, so it can be read from any thread; registering more commands builds a new one.
+ */
+public final class CommandRegistry
+{
+	private static final int MAX_SUGGEST_DISTANCE = 2;
+
+	private final Node root = new Node();
+	// Each command once, sorted by name
+	private final List<Command> commands;
+	private final String commandList;
+
+	public CommandRegistry(Collection<Command> commands)
+	{
+		Set<Command> unique = Collections.newSetFromMap(new IdentityHashMap<Command, Boolean>());
+
+		Map<String, Command> names = new HashMap<>();
+
+		// Later commands replace earlier ones with the same name, like they did in the old map
+		for (Command command : commands)
+		{
+			names.put(lowerCase(command.getName()), command);
+
+			for (String alias : command.getAliases())
+			{
+				names.put(lowerCase(alias), command);
+			}
+		}
+
+		// Only once every name is settled, or a replaced command would still count towards prefix matches
+		for (Map.Entry<String, Command> name : names.entrySet())
+		{
+			insert(name.getKey(), name.getValue());
+		}
+
+		collect(root, unique);
+
+		List<Command> sorted = new ArrayList<>(unique);
+
+		Collections.sort(sorted, new Comparator<Command>()
+		{
+			@Override
+			public int compare(Command first, Command second)
+			{
+				return first.getName().compareToIgnoreCase(second.getName());
+			}
+		});
+
+		StringBuilder list = new StringBuilder();
+
+		for (Command command : sorted)
+		{
+			if (list.length() > 0)
+			{
+				list.append(", ");
+			}
+			list.append(command.getName());
+		}
+
+		this.commands = Collections.unmodifiableList(sorted);
+		this.commandList = list.toString();
+	}
+
+	public CommandRegistry with(Collection<Command> added)
+	{
+		List<Command> all = new ArrayList<>(commands);
+
+		all.addAll(added);
+		return new CommandRegistry(all);
+	}
+
+	// Returns the command with this name or alias, or null.
+	public Command get(String name)
+	{
+		Node node = find(name);
+
+		return node == null ? null : node.command;
+	}
+
+	/**
+	 * Returns the command with this name or alias, or the only command with a name or alias starting with
+	 * it. Returns null if there's no such command or the prefix could mean more than one.
+	 */
+	public Command match(String name)
+	{
+		Node node = name.isEmpty() ? null : find(name);
+
+		if (node == null)
+		{
+			return null;
+		}
+		return node.command != null ? node.command : node.only;
+	}
+
+	/**
+	 * Returns the name or alias closest to what was typed, as long as it's within a couple of typos, or
+	 * null if nothing is that close. Very short names need to be closer, or anything would match them.
+	 */
+	public String suggest(String name)
+	{
+		String lower = lowerCase(name);
+		int[] row = new int[lower.length() + 1];
+		Suggestion best = new Suggestion(Math.min(MAX_SUGGEST_DISTANCE, lower.length() - 1));
+
+		for (int i = 0; i < row.length; i++)
+		{
+			row[i] = i;
+		}
+
+		for (int i = 0; i < root.keys.length; i++)
+		{
+			suggest(root.children[i], root.keys[i], lower, row, best);
+		}
+		return best.key;
+	}
+
+	// Edit distance against every key at once, one row per trie level, skipping branches that can't get closer.
+	private void suggest(Node node, char key, String word, int[] previous, Suggestion best)
+	{
+		int[] row = new int[previous.length];
+		int lowest = row[0] = previous[0] + 1;
+
+		for (int i = 1; i < row.length; i++)
+		{
+			int replace = previous[i - 1] + (word.charAt(i - 1) == key ? 0 : 1);
+
+			row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), replace);
+			lowest = Math.min(lowest, row[i]);
+		}
+
+		if (node.key != null && row[row.length - 1] < best.distance)
+		{
+			best.key = node.key;
+			best.distance = row[row.length - 1];
+		}
+
+		if (lowest < best.distance)
+		{
+			for (int i = 0; i < node.keys.length; i++)
+			{
+				suggest(node.children[i], node.keys[i], word, row, best);
+			}
+		}
+	}
+
+	// Each command once, sorted by name.
+	public List<Command> getCommands()
+	{
+		return commands;
+	}
+
+	// The names of every command, comma separated, for !commands.
+	public String getCommandList()
+	{
+		return commandList;
+	}
+
+	private Node find(String name)
+	{
+		Node node = root;
+
+		for (int i = 0; i < name.length() && node != null; i++)
+		{
+			node = node.child(Character.toLowerCase(name.charAt(i)));
+		}
+		return node;
+	}
+
+	private void insert(String name, Command command)
+	{
+		Node node = root;
+
+		for (int i = 0; i < name.length(); i++)
+		{
+			node = node.addChild(Character.toLowerCase(name.charAt(i)));
+			node.addBelow(command);
+		}
+		node.command = command;
+		node.key = lowerCase(name);
+	}
+
+	private void collect(Node node, Set<Command> unique)
+	{
+		if (node.command != null)
+		{
+			unique.add(node.command);
+		}
+
+		for (Node child : node.children)
+		{
+			collect(child, unique);
+		}
+	}
+
+	private static String lowerCase(String name)
+	{
+		char[] chars = new char[name.length()];
+
+		for (int i = 0; i < chars.length; i++)
+		{
+			chars[i] = Character.toLowerCase(name.charAt(i));
+		}
+		return new String(chars);
+	}
+
+	private static final class Node
+	{
+		// Children sorted by character, there are only ever a few
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		// The command whose name or alias ends here, and that name or alias
+		private Command command;
+		private String key;
+		// The one command below here, if there is only one
+		private Command only;
+		private boolean shared;
+
+		private Node child(char c)
+		{
+			for (int i = 0; i < keys.length; i++)
+			{
+				if (keys[i] == c)
+				{
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node addChild(char c)
+		{
+			Node child = child(c);
+
+			if (child != null)
+			{
+				return child;
+			}
+
+			int index = 0;
+
+			while (index < keys.length && keys[index] < c)
+			{
+				index++;
+			}
+
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(children, 0, newChildren, 0, index);
+			System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+			System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+			newKeys[index] = c;
+			newChildren[index] = child = new Node();
+			keys = newKeys;
+			children = newChildren;
+			return child;
+		}
+
+		private void addBelow(Command command)
+		{
+			if (only == null && !shared)
+			{
+				only = command;
+			}
+			else if (only != command)
+			{
+				only = null;
+				shared = true;
+			}
+		}
+	}
+
+	private static final class Suggestion
+	{
+		private String key;
+		// Anything found has to beat this
+		private int distance;
+
+		private Suggestion(int maxDistance)
+		{
+			this.distance = maxDistance + 1;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A number of uses per number of seconds, written in config.yml as "3/30". "none" means no limit.
+ */
+public final class RateLimit
+{
+	public static final RateLimit NONE = new RateLimit(0, 0);
+
+	// Kept small enough to fit in the bits CommandRateLimiter packs them into
+	private static final int MAX_COUNT = 1000;
+	private static final long MAX_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+	private final int count;
+	private final long periodMillis;
+
+	private RateLimit(int count, long periodMillis)
+	{
+		this.count = count;
+		this.periodMillis = periodMillis;
+	}
+
+	/**
+	 * Returns null if spec is null, so callers can fall back to a less specific limit.
+	 *
+	 * @throws IllegalArgumentException if spec isn't "count/seconds" or "none"
+	 */
+	public static RateLimit parse(String spec)
+	{
+		if (spec == null)
+		{
+			return null;
+		}
+
+		if (spec.trim().equalsIgnoreCase("none"))
+		{
+			return NONE;
+		}
+
+		int slash = spec.indexOf('/');
+
+		try
+		{
+			int count = Integer.parseInt(spec.substring(0, Math.max(slash, 0)).trim());
+			long seconds = Long.parseLong(spec.substring(slash + 1).trim());
+
+			if (count < 1 || count > MAX_COUNT || seconds < 1 || seconds > MAX_SECONDS)
+			{
+				throw new IllegalArgumentException(String.format("Rate limit '%s' needs between 1 and %s uses over 1 second to 1 day", spec, MAX_COUNT));
+			}
+			return new RateLimit(count, TimeUnit.SECONDS.toMillis(seconds));
+		}
+		catch (NumberFormatException ex)
+		{
+			throw new IllegalArgumentException(String.format("Rate limit '%s' should look like 3/30 or none", spec));
+		}
+	}
+
+	public boolean isNone()
+	{
+		return count == 0;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+	public long getPeriodMillis()
+	{
+		return periodMillis;
+	}
+
+	@Override
+	public String toString()
+	{
+		return isNone() ? "none" : count + "/" + TimeUnit.MILLISECONDS.toSeconds(periodMillis);
+	}
+}
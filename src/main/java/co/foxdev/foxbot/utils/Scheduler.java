@@ -0,0 +1,177 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.database.PendingModeChange;
+import org.pircbotx.Channel;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One shared timer thread for everything the bot does later. Mode changes scheduled through here
+ * are saved to the database, so an unban still happens if the bot is restarted before it is due.
+ */
+public class Scheduler
+{
+	// Give ChanServ a chance to op us before catching up on overdue mode changes
+	private static final long CATCH_UP_DELAY = TimeUnit.SECONDS.toMillis(10);
+
+	private final FoxBot foxbot;
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final Set<PendingModeChange> scheduled = Collections.newSetFromMap(new ConcurrentHashMap<PendingModeChange, Boolean>());
+	// Saved mode changes waiting for the bot to join their channel, keyed by lowercase channel name
+	private final Map<String, List<PendingModeChange>> waiting = new HashMap<>();
+
+	public Scheduler(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "FoxBot-Scheduler-" + count.incrementAndGet());
+
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	public ScheduledFuture<?> schedule(final Runnable task, long delay, TimeUnit unit)
+	{
+		return executor.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					task.run();
+				}
+				catch (Exception ex)
+				{
+					foxbot.log(ex);
+				}
+			}
+		}, delay, unit);
+	}
+
+	// Sets -mode on target in channel after the delay, even if the bot restarts in between.
+	public void scheduleModeRemove(Channel channel, String mode, String target, long delay, TimeUnit unit)
+	{
+		PendingModeChange change = new PendingModeChange(channel.getName(), mode, target, System.currentTimeMillis() + unit.toMillis(delay));
+
+		foxbot.getDatabase().addPendingModeChange(change);
+		schedule(change, 0);
+	}
+
+	private void schedule(final PendingModeChange change, long minimumDelay)
+	{
+		if (!scheduled.add(change))
+		{
+			return;
+		}
+
+		long delay = Math.max(minimumDelay, change.getRunTime() - System.currentTimeMillis());
+
+		schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					foxbot.setMode(foxbot.getChannel(change.getChannel()), String.format("-%s %s", change.getMode(), change.getTarget()));
+					foxbot.getDatabase().removePendingModeChange(change);
+				}
+				finally
+				{
+					scheduled.remove(change);
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	// Called on connect, picks up anything that was still pending when the bot last shut down.
+	public void loadPending()
+	{
+		List<PendingModeChange> changes = foxbot.getDatabase().getPendingModeChanges();
+
+		synchronized (waiting)
+		{
+			waiting.clear();
+
+			for (PendingModeChange change : changes)
+			{
+				if (scheduled.contains(change))
+				{
+					continue;
+				}
+
+				String channel = change.getChannel().toLowerCase();
+
+				if (!waiting.containsKey(channel))
+				{
+					waiting.put(channel, new ArrayList<PendingModeChange>());
+				}
+				waiting.get(channel).add(change);
+			}
+		}
+		foxbot.log(String.format("Loaded %s pending mode changes", changes.size()));
+	}
+
+	// We need to be in the channel (and opped) for mode changes to work, so overdue ones wait until we join.
+	public void channelJoined(Channel channel)
+	{
+		List<PendingModeChange> changes;
+
+		synchronized (waiting)
+		{
+			changes = waiting.remove(channel.getName().toLowerCase());
+		}
+
+		if (changes == null)
+		{
+			return;
+		}
+
+		for (PendingModeChange change : changes)
+		{
+			schedule(change, CATCH_UP_DELAY);
+		}
+	}
+
+	public int getActiveCount()
+	{
+		return executor.getQueue().size();
+	}
+
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.FoxBot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class StartupTimer
+{
+	private final FoxBot foxbot;
+
+	private final Map<String, Long> phases = new LinkedHashMap<>();
+	private final long started = System.nanoTime();
+	private long phaseStarted = started;
+	private boolean reported = false;
+
+	public StartupTimer(FoxBot foxbot)
+	{
+		this.foxbot = foxbot;
+	}
+
+	// Ends the current phase and starts the next one.
+	public synchronized void phase(String name)
+	{
+		long now = System.nanoTime();
+
+		phases.put(name, now - phaseStarted);
+		phaseStarted = now;
+	}
+
+	public synchronized void report()
+	{
+		// Only report the first connect, not every reconnect
+		if (reported)
+		{
+			return;
+		}
+
+		StringBuilder report = new StringBuilder();
+
+		for (Map.Entry<String, Long> phase : phases.entrySet())
+		{
+			report.append(String.format("%s: %sms, ", phase.getKey(), TimeUnit.NANOSECONDS.toMillis(phase.getValue())));
+		}
+
+		foxbot.log(String.format("Startup took %sms (%s)", TimeUnit.NANOSECONDS.toMillis(phaseStarted - started), report.substring(0, report.length() - 2)));
+		reported = true;
+	}
+}
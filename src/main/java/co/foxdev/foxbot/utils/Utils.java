@@ -18,85 +18,14 @@
 package co.foxdev.foxbot.utils;
 
 import co.foxdev.foxbot.FoxBot;
-import org.apache.commons.lang3.StringEscapeUtils;
-import org.jsoup.Connection;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.pircbotx.*;
 
-import java.io.*;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
 
 public class Utils
 {
 	private static FoxBot foxbot = FoxBot.getInstance();
 
-    public static String parseChatUrl(String stringToParse, User sender)
-    {
-        try
-        {
-	        Connection conn = Jsoup.connect(stringToParse);
-
-	        conn.followRedirects(true)
-	            .userAgent("FoxBot // http://foxbot.foxdev.co // Seeing this? It means your web address was posted on IRC and FoxBot is getting page info (title, size, content type) to send to the channel. Nothing to worry about.")
-	            .timeout(3000)
-	            .maxBodySize(100000)
-	            .ignoreContentType(true);
-
-	        Connection.Response response = conn.execute();
-	        Document doc = response.parse();
-            String size = response.header("Content-Length") == null ? "Unknown" : (Integer.parseInt(response.header("Content-Length")) / 1024) + "kb";
-	        String contentType = response.contentType().contains(";") ? response.contentType().split(";")[0] : response.contentType();
-
-
-            if (response.statusCode() != 200 && response.statusCode() != 302 && response.statusCode() != 301)
-            {
-                return colourise(String.format("(%s's URL) &cError: &r%s %s ", munge(sender.getNick()), response.statusCode(), response.statusMessage()));
-            }
-
-            if (!contentType.contains("html"))
-            {
-                return colourise(String.format("(%s's URL) &2Content Type: &r%s &2Size: &r%s", munge(sender.getNick()), contentType, size));
-            }
-
-	        String title = doc.title() == null || doc.title().isEmpty() ? "No title found" : doc.title();
-
-	        if (stringToParse.matches("^https?://(www\\.)?youtube\\.com/watch.*"))
-	        {
-		        title = doc.select("span#eow-title").first().text();
-		        String views = doc.select("span.watch-view-count").first().text();
-		        String likes = doc.select("span.likes-count").first().text();
-		        String dislikes = doc.select("span.dislikes-count").first().text();
-		        String uploader = doc.select("a.g-hovercard.yt-uix-sessionlink.yt-user-name").first().text();
-
-		        return colourise(String.format("(%s's URL) &2Title: &r%s &2Uploader: &r%s &2Views: &r%s &2Rating: &a%s&r/&c%s", munge(sender.getNick()), StringEscapeUtils.unescapeHtml4(title), uploader, views, likes, dislikes));
-	        }
-
-	        if (stringToParse.matches("^https?://(www\\.)?reddit\\.com/r/.*/comments/.*"))
-	        {
-		        String poster = doc.select("p.tagline").select("a.author").text().split(" ")[0];
-		        String comments = doc.select("a.comments").first().text().split(" ")[0];
-		        String likes = doc.select("span.upvotes").first().text().split(" ")[0];
-		        String dislikes = doc.select("span.downvotes").first().text().split(" ")[0];
-
-		        return colourise(String.format("(%s's URL) &2Title: &r%s &2Poster: &r%s &2Comments: &r%s &2Rating: &6%s&r/&9%s", munge(sender.getNick()), StringEscapeUtils.unescapeHtml4(title), poster, comments, likes, dislikes));
-	        }
-            return colourise(String.format("(%s's URL) &2Title: &r%s &2Content Type: &r%s &2Size: &r%s", munge(sender.getNick()), StringEscapeUtils.unescapeHtml4(title), contentType, size));
-        }
-        catch (IllegalArgumentException ignored)
-        {
-
-        }
-        catch (Exception ex)
-        {
-	        foxbot.log(ex);
-        }
-        return "null";
-    }
-
     public static String munge(String stringToMunge)
     {
         return foxbot.getConfig().getMungeUsernames() ? stringToMunge.replace("a", "ä").replace("e", "è").replace("o", "ö").replace("u", "ù").replace("s", "š").replace("i", "í").replace("n", "ñ") : stringToMunge;
@@ -109,101 +38,81 @@ public class Utils
 
 	public static String colourise(String stringToColour, char colourChar)
 	{
-		return stringToColour.replace(colourChar + "0", Colors.BLACK)
-		                     .replace(colourChar + "1", Colors.DARK_BLUE)
-		                     .replace(colourChar + "2", Colors.DARK_GREEN)
-		                     .replace(colourChar + "3", Colors.TEAL)
-		                     .replace(colourChar + "4", Colors.RED)
-		                     .replace(colourChar + "5", Colors.PURPLE)
-		                     .replace(colourChar + "6", Colors.BROWN)
-		                     .replace(colourChar + "7", Colors.LIGHT_GRAY)
-		                     .replace(colourChar + "8", Colors.DARK_GRAY)
-		                     .replace(colourChar + "9", Colors.BLUE)
-		                     .replace(colourChar + "a", Colors.GREEN)
-		                     .replace(colourChar + "b", Colors.CYAN)
-		                     .replace(colourChar + "c", Colors.RED)
-		                     .replace(colourChar + "d", Colors.MAGENTA)
-		                     .replace(colourChar + "e", Colors.YELLOW)
-		                     .replace(colourChar + "f", Colors.WHITE)
-		                     .replace(colourChar + "r", Colors.NORMAL)
-		                     .replace(colourChar + "l", Colors.BOLD)
-		                     .replace(colourChar + "n", Colors.UNDERLINE)
-		                     .replace(colourChar + "m", "")
-		                     .replace(colourChar + "k", "")
-		                     .replace(colourChar + "o", "");
+		int index = stringToColour.indexOf(colourChar);
+
+		if (index == -1)
+		{
+			return stringToColour;
+		}
+
+		int length = stringToColour.length();
+		// Colour codes are never much longer than what they replace
+		StringBuilder builder = new StringBuilder(length + 16);
+
+		builder.append(stringToColour, 0, index);
+
+		for (int i = index; i < length; i++)
+		{
+			char c = stringToColour.charAt(i);
+
+			if (c == colourChar && i + 1 < length)
+			{
+				char code = stringToColour.charAt(i + 1);
+
+				if (code < COLOUR_CODES.length && COLOUR_CODES[code] != null)
+				{
+					builder.append(COLOUR_CODES[code]);
+					i++;
+					continue;
+				}
+			}
+			builder.append(c);
+		}
+		return builder.toString();
+	}
+
+	// What each character after the colour char turns into, null if it isn't a code
+	private static final String[] COLOUR_CODES = new String['z' + 1];
 
+	static
+	{
+		COLOUR_CODES['0'] = Colors.BLACK;
+		COLOUR_CODES['1'] = Colors.DARK_BLUE;
+		COLOUR_CODES['2'] = Colors.DARK_GREEN;
+		COLOUR_CODES['3'] = Colors.TEAL;
+		COLOUR_CODES['4'] = Colors.RED;
+		COLOUR_CODES['5'] = Colors.PURPLE;
+		COLOUR_CODES['6'] = Colors.BROWN;
+		COLOUR_CODES['7'] = Colors.LIGHT_GRAY;
+		COLOUR_CODES['8'] = Colors.DARK_GRAY;
+		COLOUR_CODES['9'] = Colors.BLUE;
+		COLOUR_CODES['a'] = Colors.GREEN;
+		COLOUR_CODES['b'] = Colors.CYAN;
+		COLOUR_CODES['c'] = Colors.RED;
+		COLOUR_CODES['d'] = Colors.MAGENTA;
+		COLOUR_CODES['e'] = Colors.YELLOW;
+		COLOUR_CODES['f'] = Colors.WHITE;
+		COLOUR_CODES['r'] = Colors.NORMAL;
+		COLOUR_CODES['l'] = Colors.BOLD;
+		COLOUR_CODES['n'] = Colors.UNDERLINE;
+		// Minecraft formatting IRC has no equivalent for
+		COLOUR_CODES['m'] = "";
+		COLOUR_CODES['k'] = "";
+		COLOUR_CODES['o'] = "";
 	}
 
     public static boolean addCustomCommand(String channel, String command, String text)
     {
-        String filePath = "data/custcmds/" + channel.substring(1);
-        File path = new File(filePath);
-
-        try
-        {
-            if (!path.exists() && !path.mkdirs())
-            {
-	            foxbot.log(Level.WARNING, "Error while creating custom command folders!");
-            }
-
-            File file = new File(filePath + "/" + command);
-
-            if (file.exists() && !file.delete())
-            {
-	            foxbot.log(Level.WARNING, "Error while deleting old command!");
-            }
-
-            if (text.isEmpty() || text.equalsIgnoreCase("delete"))
-            {
-                if (file.delete())
-                {
-	                foxbot.log(String.format("Command '%s' deleted for %s!", command, channel));
-                }
-                return false;
-            }
-
-            FileWriter fw = new FileWriter(filePath + "/" + command);
-            BufferedWriter bw = new BufferedWriter(fw);
-
-            bw.write(text);
-            bw.close();
-            fw.close();
-	        foxbot.log(String.format("Command '%s' set for %s at %s", command, channel, file.getAbsolutePath()));
-        }
-        catch (IOException ex)
-        {
-	        foxbot.log(ex);
-        }
-        return true;
+        return foxbot.getCommandManager().getCustomCommandStore().set(channel, command, text);
     }
 
-    public static void scheduleUnban(final Channel channel, final String hostmask, final int time)
+    public static void scheduleUnban(Channel channel, String hostmask, int time)
     {
-        new Timer().schedule(
-                new TimerTask()
-                {
-                    @Override
-                    public void run()
-                    {
-	                    FoxBot.getInstance().unBan(channel, hostmask);
-                    }
-                },
-                TimeUnit.SECONDS.toMillis(time)
-        );
+        scheduleModeRemove(channel, hostmask, "b", time);
     }
 
-    public static void scheduleModeRemove(final Channel channel, final String hostmask, final String mode, final int time)
+    public static void scheduleModeRemove(Channel channel, String hostmask, String mode, int time)
     {
-        new Timer().schedule(
-                new TimerTask()
-                {
-                    @Override
-                    public void run()
-                    {
-	                    FoxBot.getInstance().setMode(channel, "-" + mode + " " + hostmask);
-                    }
-                },
-                TimeUnit.SECONDS.toMillis(time)
-        );
+        foxbot.getScheduler().scheduleModeRemove(channel, mode, hostmask, time, TimeUnit.SECONDS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot;
+
+import ch.qos.logback.classic.Level;
+import co.foxdev.foxbot.config.Config;
+import co.foxdev.foxbot.irc.FakeIrcServer;
+import co.foxdev.foxbot.irc.FoxBotFactory;
+import co.foxdev.foxbot.metrics.MetricsRegistry;
+import co.foxdev.foxbot.permissions.PermissionManager;
+import co.foxdev.foxbot.utils.CommandManager;
+import org.pircbotx.Configuration;
+import org.pircbotx.PircBotX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds a FoxBot with just the parts the message path needs, for tests and benchmarks, using the
+ * config files in the working directory. FoxBot only wires itself up in start(), which also connects,
+ * so the fields are set directly.
+ */
+public class StubFoxBot
+{
+	public static FoxBot create(PircBotX bot)
+	{
+		// Logging to the console would swamp whatever is being measured or tested
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+		FoxBot foxbot = new FoxBot();
+
+		// Before anything loads Utils, which keeps hold of the instance
+		set(null, "instance", foxbot);
+		set(foxbot, "logger", LoggerFactory.getLogger(FoxBot.class.getName()));
+		set(foxbot, "bot", bot);
+		set(foxbot, "config", new Config(foxbot));
+		set(foxbot, "metrics", new MetricsRegistry(foxbot));
+		set(foxbot, "permissionManager", new PermissionManager(foxbot));
+		set(foxbot, "commandManager", new CommandManager(foxbot));
+		return foxbot;
+	}
+
+	// For a PircBotX that needs the FoxBot to build, like one using FoxBotFactory.
+	public static void setBot(FoxBot foxbot, PircBotX bot)
+	{
+		set(foxbot, "bot", bot);
+	}
+
+	/**
+	 * Starts a PircBotX with FoxBot's factory against the server, and waits until it has registered
+	 * and handled everything the server sent while it did.
+	 */
+	public static PircBotX connect(FoxBot foxbot, FakeIrcServer server, Configuration.Builder builder) throws InterruptedException
+	{
+		final PircBotX bot = new PircBotX(builder
+				.setName("FoxBot")
+				.setServer("127.0.0.1", server.getPort())
+				.setBotFactory(new FoxBotFactory(foxbot))
+				.buildConfiguration());
+
+		setBot(foxbot, bot);
+
+		final AtomicReference<Exception> failure = new AtomicReference<>();
+		Thread thread = new Thread("Test-Bot")
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					bot.startBot();
+				}
+				catch (Exception ex)
+				{
+					failure.set(ex);
+				}
+			}
+		};
+
+		thread.setDaemon(true);
+		thread.start();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+		while (!server.awaitRegistered(50, TimeUnit.MILLISECONDS))
+		{
+			if (failure.get() != null)
+			{
+				throw new IllegalStateException("Bot could not connect", failure.get());
+			}
+
+			if (System.nanoTime() > deadline)
+			{
+				throw new IllegalStateException("Bot did not register");
+			}
+		}
+		return bot;
+	}
+
+	// Unregisters the MBeans a FoxBot registers, so the next one in the same JVM can.
+	public static void release()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try
+		{
+			for (ObjectName name : server.queryNames(new ObjectName("co.foxdev.foxbot:*"), null))
+			{
+				server.unregisterMBean(name);
+			}
+		}
+		catch (JMException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void set(FoxBot foxbot, String name, Object value)
+	{
+		try
+		{
+			Field field = FoxBot.class.getDeclaredField(name);
+
+			field.setAccessible(true);
+			field.set(foxbot, value);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			throw new IllegalStateException(String.format("FoxBot no longer has a '%s' field", name), ex);
+		}
+	}
+}
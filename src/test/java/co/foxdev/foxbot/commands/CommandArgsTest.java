@@ -0,0 +1,113 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.commands;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CommandArgsTest
+{
+	@Test
+	public void onlyParsesCommands()
+	{
+		assertNull(CommandArgs.parse("", '!', "FoxBot"));
+		assertNull(CommandArgs.parse("hello there", '!', "FoxBot"));
+		assertNull(CommandArgs.parse("FoxBot say hi", '!', "FoxBot"));
+
+		assertEquals("say", CommandArgs.parse("!say hi", '!', "FoxBot").getName());
+		assertEquals("say", CommandArgs.parse("FoxBot, say hi", '!', "FoxBot").getName());
+		assertEquals("", CommandArgs.parse("! say", '!', "FoxBot").getName());
+	}
+
+	@Test
+	public void skipsRunsOfSpaces()
+	{
+		CommandArgs args = CommandArgs.parse("!say   one  two   ", '!', "FoxBot");
+
+		assertEquals(2, args.size());
+		assertEquals("one", args.get(0));
+		assertEquals("two", args.get(1));
+		assertEquals("one  two", args.rest(0));
+		assertEquals("two", args.rest(1));
+	}
+
+	@Test
+	public void noArguments()
+	{
+		CommandArgs args = CommandArgs.parse("!ping", '!', "FoxBot");
+
+		assertTrue(args.isEmpty());
+		assertEquals(0, args.toArray().length);
+		assertEquals("", args.rest(0));
+	}
+
+	@Test
+	public void quotedArgumentsKeepSpaces()
+	{
+		CommandArgs args = CommandArgs.parse("!tell \"two words\" rest of it", '!', "FoxBot");
+
+		assertEquals(4, args.size());
+		assertEquals("two words", args.get(0));
+		assertEquals("rest of it", args.rest(1));
+		assertEquals("\"two words\" rest", args.rest(0, 2));
+		assertArrayEquals(new String[] { "two words", "rest", "of", "it" }, args.toArray());
+	}
+
+	@Test
+	public void unclosedQuoteIsPlainText()
+	{
+		CommandArgs args = CommandArgs.parse("!say \"not closed", '!', "FoxBot");
+
+		assertArrayEquals(new String[] { "\"not", "closed" }, args.toArray());
+		assertEquals("\"not closed", args.rest(0));
+	}
+
+	@Test
+	public void quoteOnlyClosesBeforeASpace()
+	{
+		CommandArgs args = CommandArgs.parse("!say \"it\"s here\" now", '!', "FoxBot");
+
+		assertArrayEquals(new String[] { "it\"s here", "now" }, args.toArray());
+	}
+
+	@Test
+	public void restBounds()
+	{
+		CommandArgs args = CommandArgs.parse("!say a b c", '!', "FoxBot");
+
+		assertEquals("b", args.rest(1, 2));
+		assertEquals("a b c", args.rest(0, 3));
+		assertEquals("", args.rest(2, 2));
+		assertEquals("", args.rest(2, 1));
+		assertEquals("", args.rest(3));
+		assertEquals("", args.rest(7, 9));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void restPastTheEnd()
+	{
+		CommandArgs.parse("!say a b c", '!', "FoxBot").rest(1, 4);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void getPastTheEnd()
+	{
+		CommandArgs.parse("!say a", '!', "FoxBot").get(1);
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChannelJoinerTest
+{
+	private static final List<String> NONE = Collections.emptyList();
+
+	@Test
+	public void putsKeyedChannelsFirst()
+	{
+		List<String> lines = ChannelJoiner.buildLines(Arrays.asList("#secret", "#private"), Arrays.asList("key1", "key2"), Arrays.asList("#open"));
+
+		assertEquals(Collections.singletonList("JOIN #secret,#private,#open key1,key2"), lines);
+	}
+
+	@Test
+	public void leavesOutKeysWhenThereAreNone()
+	{
+		assertEquals(Collections.singletonList("JOIN #a,#b"), ChannelJoiner.buildLines(NONE, NONE, Arrays.asList("#a", "#b")));
+		assertTrue(ChannelJoiner.buildLines(NONE, NONE, NONE).isEmpty());
+	}
+
+	@Test
+	public void splitsLongLists()
+	{
+		List<String> channels = channels("#channel", 200);
+		List<String> lines = ChannelJoiner.buildLines(NONE, NONE, channels);
+
+		assertTrue(lines.size() > 1);
+		assertFits(lines);
+		assertEquals(channels, channelsIn(lines));
+	}
+
+	@Test
+	public void splitsKeyedListsWithTheirKeys()
+	{
+		List<String> keyed = channels("#keyed", 100);
+		List<String> keys = channels("key", 100);
+		List<String> lines = ChannelJoiner.buildLines(keyed, keys, channels("#open", 50));
+
+		assertTrue(lines.size() > 1);
+		assertFits(lines);
+
+		List<String> seenKeys = new ArrayList<>();
+
+		for (String line : lines)
+		{
+			String[] parts = line.split(" ");
+			List<String> lineChannels = Arrays.asList(parts[1].split(","));
+			List<String> lineKeys = parts.length > 2 ? Arrays.asList(parts[2].split(",")) : NONE;
+
+			// Each key has to line up with its own channel
+			for (int i = 0; i < lineKeys.size(); i++)
+			{
+				assertEquals(lineChannels.get(i).replace("#keyed", "key"), lineKeys.get(i));
+			}
+			seenKeys.addAll(lineKeys);
+		}
+		assertEquals(keys, seenKeys);
+	}
+
+	@Test
+	public void measuresBytesNotChars()
+	{
+		// Two bytes per é, so these only fit half as many to a line as their length suggests
+		List<String> channels = channels("#éééééééééé", 60);
+		List<String> lines = ChannelJoiner.buildLines(NONE, NONE, channels);
+
+		assertFits(lines);
+		assertEquals(channels, channelsIn(lines));
+	}
+
+	@Test
+	public void sendsOversizedChannelsOnTheirOwn()
+	{
+		StringBuilder name = new StringBuilder("#");
+
+		while (name.length() < 600)
+		{
+			name.append('x');
+		}
+
+		List<String> lines = ChannelJoiner.buildLines(NONE, NONE, Arrays.asList("#a", name.toString(), "#b"));
+
+		assertEquals(Arrays.asList("JOIN #a", "JOIN " + name, "JOIN #b"), lines);
+	}
+
+	private static List<String> channels(String prefix, int count)
+	{
+		List<String> channels = new ArrayList<>();
+
+		for (int i = 0; i < count; i++)
+		{
+			channels.add(prefix + i);
+		}
+		return channels;
+	}
+
+	private static List<String> channelsIn(List<String> lines)
+	{
+		List<String> channels = new ArrayList<>();
+
+		for (String line : lines)
+		{
+			channels.addAll(Arrays.asList(line.split(" ")[1].split(",")));
+		}
+		return channels;
+	}
+
+	private static void assertFits(List<String> lines)
+	{
+		for (String line : lines)
+		{
+			assertTrue(line, line.getBytes(StandardCharsets.UTF_8).length <= 510);
+		}
+	}
+}
@@ -0,0 +1,529 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Just enough of an IRC server for PircBotX to register, join channels and talk, on a port on the
+ * loopback address. One client at a time. Lines from simulated users are pushed to the bot with
+ * send(), and everything the bot says is handed to the Listener. Used by tests as a stand-in IRCd
+ * and by the load test in bench.load.
+ */
+public class FakeIrcServer implements Runnable
+{
+	private static final String NAME = "fake.irc";
+	private static final String BOT_HOST = "bot.fake.irc";
+	// Sent straight after the welcome numerics, so the PONG for it means the bot has handled them
+	private static final String REGISTERED_TOKEN = "registered";
+
+	private final ServerSocket serverSocket;
+	private final Listener listener;
+	// Lower case names of the channels the bot is in
+	private final Set<String> joined = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final Object writeLock = new Object();
+	private volatile Writer writer;
+	private volatile String nick = "*";
+	private String login = "bot";
+	private boolean registered;
+	private volatile boolean closed;
+	// Capabilities offered in CAP LS, none by default
+	private volatile Set<String> capabilities = Collections.emptySet();
+	private boolean negotiating;
+	private boolean userSent;
+	private final AtomicInteger pings = new AtomicInteger();
+	private volatile String lastPong = "";
+	private volatile CountDownLatch registration = new CountDownLatch(1);
+	// The first thing that went wrong on the server thread, reported by the await methods and close()
+	private volatile IOException failure;
+	// Every line from the bot, if recordLines() was called
+	private volatile List<String> received;
+
+	public interface Listener
+	{
+		// Called on the server thread for every PRIVMSG and NOTICE the bot sends.
+		void onMessage(String target, String text);
+	}
+
+	public FakeIrcServer(Listener listener) throws IOException
+	{
+		this.listener = listener;
+		this.serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+	}
+
+	public int getPort()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	public void start()
+	{
+		Thread thread = new Thread(this, "FakeIrc-Server");
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run()
+	{
+		while (!closed)
+		{
+			try (Socket socket = serverSocket.accept())
+			{
+				handle(socket);
+			}
+			catch (IOException ex)
+			{
+				if (!closed && failure == null)
+				{
+					failure = ex;
+				}
+			}
+			finally
+			{
+				writer = null;
+				registration = new CountDownLatch(1);
+				joined.clear();
+				registered = false;
+				negotiating = false;
+				userSent = false;
+			}
+		}
+	}
+
+	private void handle(Socket socket) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+		String line;
+
+		writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), 64 * 1024);
+
+		while ((line = reader.readLine()) != null)
+		{
+			List<String> params = parse(line);
+			List<String> record = received;
+
+			if (record != null)
+			{
+				record.add(line);
+			}
+
+			if (!params.isEmpty() && !handleLine(params))
+			{
+				return;
+			}
+		}
+	}
+
+	// Returns false once the bot has quit.
+	private boolean handleLine(List<String> params)
+	{
+		String command = params.remove(0).toUpperCase(Locale.ENGLISH);
+		String first = params.isEmpty() ? "" : params.get(0);
+
+		switch (command)
+		{
+			case "CAP":
+				// Like a real server, registration waits for CAP END once the client has asked
+				if (first.equalsIgnoreCase("LS"))
+				{
+					negotiating = true;
+					reply("CAP * LS :" + StringUtils.join(capabilities, ' '));
+				}
+				else if (first.equalsIgnoreCase("REQ"))
+				{
+					List<String> requested = Arrays.asList(last(params).trim().split(" "));
+
+					reply("CAP * " + (capabilities.containsAll(requested) ? "ACK" : "NAK") + " :" + last(params));
+				}
+				else if (first.equalsIgnoreCase("END"))
+				{
+					negotiating = false;
+
+					if (userSent && !registered)
+					{
+						register();
+					}
+				}
+				break;
+			case "NICK":
+				if (registered)
+				{
+					send(":" + getHostmask() + " NICK :" + first);
+				}
+				nick = first;
+				break;
+			case "USER":
+				login = first;
+				userSent = true;
+
+				if (!negotiating)
+				{
+					register();
+				}
+				break;
+			case "PING":
+				reply("PONG " + NAME + " :" + first);
+				break;
+			case "JOIN":
+				for (String channel : first.split(","))
+				{
+					joined.add(channel.toLowerCase(Locale.ENGLISH));
+					send(":" + getHostmask() + " JOIN " + channel);
+					numeric("353", "= " + channel + " :@" + nick);
+					numeric("366", channel + " :End of /NAMES list.");
+				}
+				break;
+			case "PART":
+				for (String channel : first.split(","))
+				{
+					joined.remove(channel.toLowerCase(Locale.ENGLISH));
+					send(":" + getHostmask() + " PART " + channel);
+				}
+				break;
+			case "PRIVMSG":
+			case "NOTICE":
+				listener.onMessage(first, last(params));
+				break;
+			case "WHOIS":
+				// Every simulated user is logged in to an account matching their nick
+				numeric("311", first + " " + first + " sim.example * :" + first);
+				numeric("330", first + " " + first + " :is logged in as");
+				numeric("318", first + " :End of /WHOIS list.");
+				break;
+			case "WHO":
+				numeric("315", first + " :End of /WHO list.");
+				break;
+			case "MODE":
+				if (params.size() == 1 && first.startsWith("#"))
+				{
+					numeric("324", first + " +nt");
+				}
+				else if (params.size() > 1)
+				{
+					send(":" + getHostmask() + " MODE " + join(params));
+				}
+				break;
+			case "KICK":
+				send(":" + getHostmask() + " KICK " + join(params));
+				break;
+			case "QUIT":
+				send("ERROR :Closing Link: " + nick + " (Quit)");
+				return false;
+			case "PONG":
+				lastPong = last(params);
+
+				if (lastPong.equals(REGISTERED_TOKEN))
+				{
+					registration.countDown();
+				}
+				break;
+			case "PASS":
+				break;
+			default:
+				numeric("421", command + " :Unknown command");
+		}
+		return true;
+	}
+
+	private void register()
+	{
+		registered = true;
+		numeric("001", ":Welcome to the fake IRC network " + getHostmask());
+		numeric("002", ":Your host is " + NAME + ", running version fake-1.0");
+		numeric("003", ":This server was created just now");
+		numeric("004", NAME + " fake-1.0 iowsx bklmnopstv");
+		numeric("005", "CHANTYPES=# PREFIX=(ov)@+ CHANMODES=b,k,l,imnpst NETWORK=Fake CASEMAPPING=ascii :are supported by this server");
+		numeric("422", ":MOTD File is missing");
+		send("PING :" + REGISTERED_TOKEN);
+	}
+
+	/**
+	 * Sends a line to the bot and flushes it.
+	 */
+	public void send(String line)
+	{
+		synchronized (writeLock)
+		{
+			if (write(line))
+			{
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Sends a line to the bot without flushing, for pushing a lot of traffic at once.
+	 */
+	public void sendBuffered(String line)
+	{
+		synchronized (writeLock)
+		{
+			write(line);
+		}
+	}
+
+	public void flush()
+	{
+		synchronized (writeLock)
+		{
+			try
+			{
+				if (writer != null)
+				{
+					writer.flush();
+				}
+			}
+			catch (IOException ex)
+			{
+				// The bot disconnected, the next connection gets a new writer
+			}
+		}
+	}
+
+	private boolean write(String line)
+	{
+		Writer current = writer;
+
+		if (current == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			current.write(line);
+			current.write("\r\n");
+			return true;
+		}
+		catch (IOException ex)
+		{
+			return false;
+		}
+	}
+
+	private void reply(String line)
+	{
+		send(":" + NAME + " " + line);
+	}
+
+	private void numeric(String code, String line)
+	{
+		send(":" + NAME + " " + code + " " + nick + " " + line);
+	}
+
+	/**
+	 * Waits until the bot has registered and handled everything the server sent it on the way,
+	 * returning false on timeout.
+	 */
+	public boolean awaitRegistered(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		while (!registration.await(10, TimeUnit.MILLISECONDS))
+		{
+			checkFailure();
+
+			if (System.nanoTime() > deadline)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until the bot has joined every one of the channels, returning false on timeout.
+	 */
+	public boolean awaitJoined(Collection<String> channels, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		for (String channel : channels)
+		{
+			while (!joined.contains(channel.toLowerCase(Locale.ENGLISH)))
+			{
+				checkFailure();
+
+				if (System.nanoTime() > deadline)
+				{
+					return false;
+				}
+				Thread.sleep(50);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until the bot has handled everything sent so far, by sending a PING and waiting for the
+	 * PONG. Returns false on timeout.
+	 */
+	public boolean sync(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		String token = "sync" + pings.incrementAndGet();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		send("PING :" + token);
+
+		while (!lastPong.equals(token))
+		{
+			checkFailure();
+
+			if (System.nanoTime() > deadline)
+			{
+				return false;
+			}
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	/**
+	 * Offers these in CAP LS and acknowledges requests for them. Set before the bot connects.
+	 */
+	public void setCapabilities(String... capabilities)
+	{
+		this.capabilities = new LinkedHashSet<>(Arrays.asList(capabilities));
+	}
+
+	/**
+	 * Keeps every line the bot sends from now on, for getReceived(). Too slow for load testing.
+	 */
+	public void recordLines()
+	{
+		received = new CopyOnWriteArrayList<>();
+	}
+
+	public List<String> getReceived()
+	{
+		return received == null ? Collections.<String>emptyList() : new ArrayList<>(received);
+	}
+
+	public int getJoinedCount()
+	{
+		return joined.size();
+	}
+
+	public String getNick()
+	{
+		return nick;
+	}
+
+	// Throws if the server thread failed at any point, so the test using it fails too.
+	public void close() throws IOException
+	{
+		closed = true;
+		serverSocket.close();
+
+		if (failure != null)
+		{
+			throw new IOException("Fake IRC server failed", failure);
+		}
+	}
+
+	private void checkFailure()
+	{
+		if (failure != null)
+		{
+			throw new IllegalStateException("Fake IRC server failed", failure);
+		}
+	}
+
+	private String getHostmask()
+	{
+		return nick + "!" + login + "@" + BOT_HOST;
+	}
+
+	// Splits a line from the bot into the command and its parameters, with the trailing one last.
+	static List<String> parse(String line)
+	{
+		List<String> params = new ArrayList<>();
+		int start = line.startsWith(":") ? line.indexOf(' ') + 1 : 0;
+
+		while (start < line.length())
+		{
+			if (line.charAt(start) == ' ')
+			{
+				start++;
+				continue;
+			}
+
+			if (line.charAt(start) == ':' && !params.isEmpty())
+			{
+				params.add(line.substring(start + 1));
+				break;
+			}
+
+			int end = line.indexOf(' ', start);
+
+			if (end < 0)
+			{
+				end = line.length();
+			}
+			params.add(line.substring(start, end));
+			start = end + 1;
+		}
+		return params;
+	}
+
+	private static String last(List<String> params)
+	{
+		return params.isEmpty() ? "" : params.get(params.size() - 1);
+	}
+
+	private static String join(List<String> params)
+	{
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < params.size(); i++)
+		{
+			if (i > 0)
+			{
+				builder.append(' ');
+			}
+
+			// Anything with a space, or that could be mistaken for one, has to be the trailing parameter
+			if (i == params.size() - 1 && (params.get(i).contains(" ") || params.get(i).isEmpty() || params.get(i).startsWith(":")))
+			{
+				builder.append(':');
+			}
+			builder.append(params.get(i));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.irc;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.StubFoxBot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pircbotx.Configuration;
+import org.pircbotx.PircBotX;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OutboundQueueTest
+{
+	private FakeIrcServer server;
+	private PircBotX bot;
+
+	@Before
+	public void connect() throws Exception
+	{
+		server = new FakeIrcServer(new FakeIrcServer.Listener()
+		{
+			@Override
+			public void onMessage(String target, String text)
+			{
+			}
+		});
+		server.start();
+
+		FoxBot foxbot = StubFoxBot.create(null);
+
+		bot = StubFoxBot.connect(foxbot, server, new Configuration.Builder());
+		server.recordLines();
+	}
+
+	@After
+	public void disconnect() throws Exception
+	{
+		bot.stopBotReconnect();
+		server.close();
+		StubFoxBot.release();
+	}
+
+	@Test
+	public void keepsJoinMessagePartInOrder() throws Exception
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			bot.sendRaw().rawLine("JOIN #say" + i);
+			bot.sendRaw().rawLine("PRIVMSG #say" + i + " :Hello");
+			bot.sendRaw().rawLine("PART #say" + i);
+		}
+
+		assertTrue(((OutboundQueue) bot.sendRaw()).awaitEmpty(10, TimeUnit.SECONDS));
+		// The PONG goes out after everything above, so the server has read it all by then
+		assertTrue(server.sync(10, TimeUnit.SECONDS));
+
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals(Arrays.asList("JOIN #say" + i, "PRIVMSG #say" + i + " :Hello", "PART #say" + i), linesFor("#say" + i));
+		}
+	}
+
+	@Test
+	public void quitWaitsForQueuedLines() throws Exception
+	{
+		for (int i = 0; i < 5; i++)
+		{
+			bot.sendRaw().rawLine("PART #chan" + i + " :Killed");
+		}
+		bot.sendIRC().quitServer("Killed");
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+		while (!server.getReceived().contains("QUIT :Killed") && System.nanoTime() < deadline)
+		{
+			Thread.sleep(10);
+		}
+
+		List<String> received = server.getReceived();
+
+		assertEquals(6, received.size());
+		assertEquals("QUIT :Killed", received.get(5));
+	}
+
+	// What the server got for the target, leaving out the WHO and MODE PircBotX sends after joining
+	private List<String> linesFor(String target)
+	{
+		List<String> lines = new ArrayList<>();
+
+		for (String line : server.getReceived())
+		{
+			String[] parts = line.split(" ", 3);
+
+			if (parts.length > 1 && parts[1].equals(target) && !parts[0].equals("WHO") && !parts[0].equals("MODE"))
+			{
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+}
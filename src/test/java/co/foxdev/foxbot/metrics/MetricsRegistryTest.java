@@ -0,0 +1,95 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.metrics;
+
+import co.foxdev.foxbot.StubFoxBot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest
+{
+	private MetricsRegistry metrics;
+
+	@Before
+	public void setUp()
+	{
+		metrics = StubFoxBot.create(null).getMetrics();
+	}
+
+	@After
+	public void tearDown()
+	{
+		StubFoxBot.release();
+	}
+
+	@Test
+	public void exportsReadCountsAsCounters()
+	{
+		metrics.counter("test_read_total", "Read from elsewhere", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return 42;
+			}
+		});
+		metrics.gauge("test_depth", "A gauge", new Gauge()
+		{
+			@Override
+			public double getValue()
+			{
+				return 3;
+			}
+		});
+
+		String text = metrics.toPrometheus();
+
+		assertTrue(text.contains("# TYPE test_read_total counter\ntest_read_total 42"));
+		assertTrue(text.contains("# TYPE test_depth gauge\ntest_depth 3"));
+		assertEquals(42D, metrics.snapshot().get("test_read_total"), 0);
+	}
+
+	@Test
+	public void noTotalIsAGauge()
+	{
+		for (String line : metrics.toPrometheus().split("\n"))
+		{
+			if (line.startsWith("# TYPE ") && line.endsWith(" gauge"))
+			{
+				assertFalse(line, line.contains("_total "));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void countersCantReplaceReadCounts()
+	{
+		metrics.counter("test_read_total", "Read from elsewhere", new FunctionCounter()
+		{
+			@Override
+			public double getValue()
+			{
+				return 0;
+			}
+		});
+		metrics.counter("test_read_total", "Counted here");
+	}
+}
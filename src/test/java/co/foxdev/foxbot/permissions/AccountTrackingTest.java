@@ -0,0 +1,172 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.permissions;
+
+import co.foxdev.foxbot.FoxBot;
+import co.foxdev.foxbot.StubFoxBot;
+import co.foxdev.foxbot.irc.FakeIrcServer;
+import org.junit.After;
+import org.junit.Test;
+import org.pircbotx.Configuration;
+import org.pircbotx.PircBotX;
+import org.pircbotx.cap.EnableCapHandler;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Account tracking end to end, with a real PircBotX using FoxBot's input parser against FakeIrcServer.
+ */
+public class AccountTrackingTest
+{
+	private static final String CHANNEL = "#test";
+
+	private FakeIrcServer server;
+	private PircBotX bot;
+	private PermissionManager permissions;
+
+	private void connect(String... capabilities) throws Exception
+	{
+		server = new FakeIrcServer(new FakeIrcServer.Listener()
+		{
+			@Override
+			public void onMessage(String target, String text)
+			{
+			}
+		});
+		server.setCapabilities(capabilities);
+		server.start();
+
+		FoxBot foxbot = StubFoxBot.create(null);
+
+		bot = StubFoxBot.connect(foxbot, server, new Configuration.Builder()
+				.setCapEnabled(true)
+				.addCapHandler(new EnableCapHandler(AccountTracker.ACCOUNT_NOTIFY, true))
+				.addCapHandler(new EnableCapHandler(AccountTracker.EXTENDED_JOIN, true))
+				.addCapHandler(new EnableCapHandler(AccountTracker.ACCOUNT_TAG, true)));
+		permissions = foxbot.getPermissionManager();
+
+		bot.sendIRC().joinChannel(CHANNEL);
+		assertTrue("Bot did not join " + CHANNEL, server.awaitJoined(Collections.singleton(CHANNEL), 10, TimeUnit.SECONDS));
+		sync();
+	}
+
+	@After
+	public void disconnect() throws Exception
+	{
+		if (bot != null)
+		{
+			bot.stopBotReconnect();
+			bot.sendIRC().quitServer();
+		}
+
+		if (server != null)
+		{
+			server.close();
+		}
+		StubFoxBot.release();
+	}
+
+	private void sync() throws InterruptedException
+	{
+		assertTrue("Bot stopped answering", server.sync(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void trustsAccountsFromExtendedJoin() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY, AccountTracker.EXTENDED_JOIN, AccountTracker.ACCOUNT_TAG);
+		server.send(":alice!a@alice.host JOIN " + CHANNEL + " alice :Alice");
+		server.send(":bob!b@bob.host JOIN " + CHANNEL + " * :Bob");
+		sync();
+
+		assertEquals(Boolean.TRUE, permissions.getTrackedLogin("alice"));
+		assertEquals(Boolean.FALSE, permissions.getTrackedLogin("bob"));
+
+		server.send(":bob!b@bob.host ACCOUNT bob");
+		server.send(":alice!a@alice.host ACCOUNT *");
+		sync();
+
+		assertEquals(Boolean.TRUE, permissions.getTrackedLogin("bob"));
+		assertEquals(Boolean.FALSE, permissions.getTrackedLogin("alice"));
+	}
+
+	@Test
+	public void forgetsUsersWhoPart() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY, AccountTracker.EXTENDED_JOIN);
+		server.send(":alice!a@alice.host JOIN " + CHANNEL + " alice :Alice");
+		server.send(":alice!a@alice.host PART " + CHANNEL);
+		sync();
+
+		assertFalse(permissions.getAccountTracker().isKnown("alice"));
+		assertNull(permissions.getTrackedLogin("alice"));
+	}
+
+	@Test
+	public void forgetsUsersWhoAreKicked() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY, AccountTracker.EXTENDED_JOIN);
+		server.send(":alice!a@alice.host JOIN " + CHANNEL + " alice :Alice");
+		server.send(":op!o@op.host KICK " + CHANNEL + " alice :Bye");
+		sync();
+
+		assertFalse(permissions.getAccountTracker().isKnown("alice"));
+		assertNull(permissions.getTrackedLogin("alice"));
+	}
+
+	@Test
+	public void forgetsEveryoneWhenTheBotLeaves() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY, AccountTracker.EXTENDED_JOIN);
+		server.send(":alice!a@alice.host JOIN " + CHANNEL + " alice :Alice");
+		sync();
+
+		assertEquals(Boolean.TRUE, permissions.getTrackedLogin("alice"));
+
+		server.send(":op!o@op.host KICK " + CHANNEL + " FoxBot :Bye");
+		sync();
+
+		assertFalse(permissions.getAccountTracker().isKnown("alice"));
+	}
+
+	@Test
+	public void ignoresAccountTagsFromOutsideOurChannels() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY, AccountTracker.EXTENDED_JOIN, AccountTracker.ACCOUNT_TAG);
+		server.send("@account=carol :carol!c@carol.host PRIVMSG FoxBot :hello");
+		sync();
+
+		assertFalse(permissions.getAccountTracker().isKnown("carol"));
+		assertNull(permissions.getTrackedLogin("carol"));
+	}
+
+	@Test
+	public void needsExtendedJoinToTrustAccounts() throws Exception
+	{
+		connect(AccountTracker.ACCOUNT_NOTIFY);
+		server.send(":alice!a@alice.host JOIN " + CHANNEL);
+		server.send(":alice!a@alice.host ACCOUNT alice");
+		sync();
+
+		assertTrue(permissions.getAccountTracker().isKnown("alice"));
+		assertNull(permissions.getTrackedLogin("alice"));
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.urlpreview;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class PageFetcherTest
+{
+	private HttpServer server;
+	private volatile String contentType;
+	private volatile byte[] body;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler()
+		{
+			@Override
+			public void handle(HttpExchange exchange) throws IOException
+			{
+				exchange.getResponseHeaders().set("Content-Type", contentType);
+				exchange.sendResponseHeaders(200, body.length);
+
+				try (OutputStream out = exchange.getResponseBody())
+				{
+					out.write(body);
+				}
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown()
+	{
+		server.stop(0);
+	}
+
+	@Test
+	public void usesTheCharsetFromTheHeader() throws IOException
+	{
+		contentType = "text/html; charset=ISO-8859-1";
+		body = "<html><head><title>Café crème</title></head><body></body></html>".getBytes(StandardCharsets.ISO_8859_1);
+
+		assertEquals("Café crème", fetchTitle());
+	}
+
+	@Test
+	public void fallsBackToTheMetaTags() throws IOException
+	{
+		contentType = "text/html";
+		body = "<html><head><meta charset=\"ISO-8859-1\"><title>Café</title></head></html>".getBytes(StandardCharsets.ISO_8859_1);
+
+		assertEquals("Café", fetchTitle());
+	}
+
+	@Test
+	public void readsCharsetParameters()
+	{
+		assertEquals("ISO-8859-1", PageFetcher.getCharset("text/html; charset=ISO-8859-1".split(";")));
+		assertEquals("utf-8", PageFetcher.getCharset("text/html; Charset=\"utf-8\"".split(";")));
+		assertEquals("UTF-8", PageFetcher.getCharset("text/html; foo=bar; charset=UTF-8".split(";")));
+		assertNull(PageFetcher.getCharset("text/html".split(";")));
+		assertNull(PageFetcher.getCharset("text/html; charset=not-a-charset".split(";")));
+		assertNull(PageFetcher.getCharset("text/html; charset=bad name!".split(";")));
+	}
+
+	private String fetchTitle() throws IOException
+	{
+		FetchedPage page = new PageFetcher().fetch("http://127.0.0.1:" + server.getAddress().getPort() + "/page", false);
+
+		return page.getDocument().title();
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.utils.CommandRateLimiter.Result;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CommandRateLimiterTest
+{
+	// Two uses every ten seconds
+	private final RateLimit limit = RateLimit.parse("2/10");
+	private final AtomicLong bucket = new AtomicLong(CommandRateLimiter.pack(0, CommandRateLimiter.capacity(limit), false));
+
+	@Test
+	public void startsFull()
+	{
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 0));
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 0));
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 0));
+	}
+
+	@Test
+	public void onlyTellsOnceUntilAllowedAgain()
+	{
+		empty(0);
+
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 0));
+		assertEquals(Result.LIMITED, CommandRateLimiter.take(bucket, limit, 100));
+		assertEquals(Result.LIMITED, CommandRateLimiter.take(bucket, limit, 200));
+		// One use comes back every five seconds
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 5000));
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 5000));
+	}
+
+	@Test
+	public void refillsWhileBeingTried()
+	{
+		empty(0);
+
+		for (long now = 1000; now < 5000; now += 1000)
+		{
+			assertNotEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, now));
+		}
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 5000));
+	}
+
+	@Test
+	public void refillsNoFurtherThanFull()
+	{
+		empty(0);
+
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 60000));
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 60000));
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 60000));
+	}
+
+	@Test
+	public void refundGivesAUseBack()
+	{
+		empty(0);
+		CommandRateLimiter.refund(bucket, limit);
+
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 0));
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 0));
+	}
+
+	@Test
+	public void refundKeepsTheNotifiedBit()
+	{
+		empty(0);
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 0));
+
+		CommandRateLimiter.refund(bucket, limit);
+		assertNotEquals(0, bucket.get() & CommandRateLimiter.NOTIFIED);
+
+		// Being allowed is what clears it
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, 0));
+		assertEquals(0, bucket.get() & CommandRateLimiter.NOTIFIED);
+	}
+
+	@Test
+	public void refundNeverOverfills()
+	{
+		CommandRateLimiter.refund(bucket, limit);
+
+		empty(0);
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, 0));
+	}
+
+	@Test
+	public void handlesLongUptimes()
+	{
+		long later = 1L << 40;
+
+		empty(later);
+		assertEquals(Result.LIMITED_FIRST, CommandRateLimiter.take(bucket, limit, later));
+		assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, later + 5000));
+	}
+
+	@Test
+	public void parsesLimits()
+	{
+		RateLimit parsed = RateLimit.parse(" 3 / 30 ");
+
+		assertEquals(3, parsed.getCount());
+		assertEquals(30000, parsed.getPeriodMillis());
+		assertEquals("3/30", parsed.toString());
+		assertTrue(RateLimit.parse("None").isNone());
+		assertNull(RateLimit.parse(null));
+	}
+
+	@Test
+	public void rejectsBadLimits()
+	{
+		for (String spec : new String[] { "", "3", "three/30", "0/30", "3/0", "1001/30", "3/100000" })
+		{
+			try
+			{
+				RateLimit.parse(spec);
+				fail(String.format("Accepted '%s'", spec));
+			}
+			catch (IllegalArgumentException expected)
+			{
+			}
+		}
+	}
+
+	private void empty(long now)
+	{
+		for (int i = 0; i < limit.getCount(); i++)
+		{
+			assertEquals(Result.ALLOWED, CommandRateLimiter.take(bucket, limit, now));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of Foxbot.
+ *
+ *     Foxbot is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Foxbot is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foxbot. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.foxdev.foxbot.utils;
+
+import co.foxdev.foxbot.commands.Command;
+import co.foxdev.foxbot.commands.CommandArgs;
+import org.junit.Test;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CommandRegistryTest
+{
+	private final Command say = new TestCommand("say");
+	private final Command set = new TestCommand("setcmd", "set");
+	private final Command sound = new TestCommand("sound");
+	private final Command message = new TestCommand("message", "msg");
+	private final CommandRegistry registry = new CommandRegistry(Arrays.asList(say, set, sound, message));
+
+	@Test
+	public void getIgnoresCase()
+	{
+		assertSame(say, registry.get("say"));
+		assertSame(say, registry.get("SaY"));
+		assertSame(message, registry.get("MSG"));
+		assertNull(registry.get("sa"));
+		assertNull(registry.get("says"));
+		assertNull(registry.get(""));
+	}
+
+	@Test
+	public void matchesUnambiguousPrefixes()
+	{
+		assertSame(sound, registry.match("so"));
+		assertSame(set, registry.match("SE"));
+		assertSame(set, registry.match("setc"));
+		// Only one command starts with m, even though it has two names that do
+		assertSame(message, registry.match("m"));
+		assertSame(say, registry.match("say"));
+	}
+
+	@Test
+	public void ambiguousPrefixesMatchNothing()
+	{
+		assertNull(registry.match("s"));
+		assertNull(registry.match(""));
+		assertNull(registry.match("x"));
+	}
+
+	@Test
+	public void fullNameWinsOverLongerOnes()
+	{
+		Command sa = new TestCommand("sa");
+		CommandRegistry withSa = registry.with(Collections.singletonList(sa));
+
+		assertSame(sa, withSa.match("sa"));
+		assertSame(say, withSa.match("say"));
+	}
+
+	@Test
+	public void laterCommandsReplaceEarlierOnes()
+	{
+		Command newSay = new TestCommand("Say");
+		CommandRegistry replaced = registry.with(Collections.singletonList(newSay));
+
+		assertSame(newSay, replaced.get("say"));
+		assertSame(newSay, replaced.match("sa"));
+		assertSame(say, registry.get("say"));
+		assertEquals(4, replaced.getCommands().size());
+	}
+
+	@Test
+	public void replacedAliasesStillMatch()
+	{
+		Command newMessage = new TestCommand("message", "msg");
+		CommandRegistry replaced = registry.with(Collections.singletonList(newMessage));
+
+		assertSame(newMessage, replaced.match("m"));
+		assertSame(newMessage, replaced.match("ms"));
+		assertSame(newMessage, replaced.get("msg"));
+	}
+
+	@Test
+	public void listsEachCommandOnceInOrder()
+	{
+		assertEquals(Arrays.asList(message, say, set, sound), registry.getCommands());
+		assertEquals("message, say, setcmd, sound", registry.getCommandList());
+	}
+
+	@Test
+	public void suggestsCloseNames()
+	{
+		assertEquals("say", registry.suggest("sya"));
+		assertEquals("sound", registry.suggest("SOUNDS"));
+		assertEquals("msg", registry.suggest("mgs"));
+		assertNull(registry.suggest("xyzzy"));
+		// One letter is never within a typo of anything
+		assertNull(registry.suggest("q"));
+	}
+
+	private static final class TestCommand extends Command
+	{
+		private TestCommand(String name, String... aliases)
+		{
+			super(name, null, aliases);
+		}
+
+		@Override
+		public void execute(MessageEvent event, CommandArgs args)
+		{
+		}
+	}
+}